@@ -0,0 +1,70 @@
+package Graph;
+
+/**
+ * Single pair shortest path search that orders the frontier by the cost so far plus the heuristic's estimate of
+ * the cost left. A vertex is expanded again if a cheaper path to it is found later, so the result is the shortest
+ * path for any heuristic that never overestimates, even an inconsistent one. An instance belongs to a single query.
+ */
+final class AStar {
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final Heuristic heuristic;
+
+	private final QueryWorkspace workspace;
+
+	/**
+	 * @Constructor: Creates the search state for one query
+	 * @param graph The graph to search
+	 * @param criteria The weight to use (distance or time)
+	 * @param heuristic Lower bound of the remaining cost
+	 * @param workspace The arrays to use for the search
+	 */
+	AStar(AbstractGraph graph, int criteria, Heuristic heuristic, QueryWorkspace workspace) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.heuristic = heuristic;
+		this.workspace = workspace;
+	}
+
+	/**
+	 * Gets the shortest path from start to end
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @return The keys of the vertex in the path, from start to end, or null if end can't be reached
+	 */
+	int[] find(int start, int end) {
+		this.workspace.reset(this.graph.getNumKeys());
+		QueryWorkspace.Side search = this.workspace.forward.prepare();
+		// the heuristic is computed once per vertex and kept in the backward side
+		this.workspace.backward.prepare();
+		IndexedMinHeap heap = search.heap();
+
+		search.set(start, 0.0, -1);
+		heap.addOrDecrease(start, estimate(start, end));
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			if (current == end) {
+				return search.toPath(end);
+			}
+			double base = search.getValue(current);
+			for (int i = 0; i < this.graph.getDegree(current); i++) {
+				int to = this.graph.getTarget(current, i);
+				double value = base + this.graph.getWeight(current, i, this.criteria);
+				if (search.getValue(to) > value) {
+					search.set(to, value, current);
+					heap.addOrDecrease(to, value + estimate(to, end));
+				}
+			}
+		}
+		return null;
+	}
+
+	private double estimate(int key, int end) {
+		QueryWorkspace.Side estimates = this.workspace.backward;
+		if (!estimates.isReached(key)) {
+			estimates.set(key, this.heuristic.estimate(this.graph, key, end), -1);
+		}
+		return estimates.getValue(key);
+	}
+}
@@ -0,0 +1,878 @@
+package Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Queries shared by every graph representation. The representations only have to expose their adjacency
+ * through dense vertex keys, the searches are written once on top of that.
+ */
+public abstract class AbstractGraph {
+	public static final int DISTANCE = 0;
+	public static final int TIME = 1;
+
+	// names of the criteria every graph has, at DISTANCE and TIME
+	static final String[] BUILT_IN_CRITERIA = { "distance", "time" };
+
+	/**
+	 * Checks if this graph is directed
+	 * @return true if directed, false otherwise
+	 */
+	public abstract boolean isDirected();
+
+	/**
+	 * Gets the number of vertex in this graph
+	 * @return The number of vertex in this graph
+	 */
+	public abstract int getNumVertex();
+
+	/**
+	 * Gets the number of weights of each edge: DISTANCE, TIME and then the criteria added to the graph, if it
+	 * allows adding them
+	 * @return The number of criteria
+	 */
+	public int getNumCriteria() {
+		return BUILT_IN_CRITERIA.length;
+	}
+
+	/**
+	 * Gets the name of a weight criteria
+	 * @param criteria The criteria
+	 * @return The name, null if the graph doesn't have the criteria
+	 */
+	public String getCriteriaName(int criteria) {
+		return (criteria >= 0 && criteria < BUILT_IN_CRITERIA.length) ? BUILT_IN_CRITERIA[criteria] : null;
+	}
+
+	/**
+	 * Gets the weight criteria with the passed name, to be passed to the searches
+	 * @param name The name of the criteria ("distance", "time" or one added to the graph)
+	 * @return The criteria, -1 if the graph doesn't have it
+	 */
+	public int getCriteria(String name) {
+		for (int c = 0; c < getNumCriteria(); c++) {
+			if (getCriteriaName(c).equals(name))
+				return c;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the upper bound (exclusive) of the vertex keys. Some keys below it may not correspond to a vertex
+	 * @return The number of keys
+	 */
+	abstract int getNumKeys();
+
+	/**
+	 * Gets the key of the vertex with the passed ID
+	 * @param id The ID of the vertex
+	 * @return The key, or -1 if there's no such vertex
+	 */
+	abstract int getKey(String id);
+
+	/**
+	 * Gets the ID of the vertex with the passed key
+	 * @param key The key of the vertex
+	 * @return The ID, or null if there's no such vertex
+	 */
+	abstract String getIdentifier(int key);
+
+	/**
+	 * Checks if a vertex has the passed key, without getting its ID
+	 * @param key The key, between 0 and getNumKeys()
+	 * @return true if there's such a vertex, false if it was removed
+	 */
+	boolean exists(int key) {
+		return getIdentifier(key) != null;
+	}
+
+	/**
+	 * Gets the number of outgoing edges of a vertex (all of its edges in an undirected graph)
+	 * @param key The key of the vertex
+	 * @return The number of outgoing edges
+	 */
+	abstract int getDegree(int key);
+
+	/**
+	 * Gets the vertex at the end of an outgoing edge
+	 * @param key The key of the vertex
+	 * @param i The position of the edge, between 0 and getDegree(key)
+	 * @return The key of the neighbour
+	 */
+	abstract int getTarget(int key, int i);
+
+	/**
+	 * Gets a weight of an outgoing edge
+	 * @param key The key of the vertex
+	 * @param i The position of the edge, between 0 and getDegree(key)
+	 * @param criteria The weight to get (distance or time)
+	 * @return The weight
+	 */
+	abstract double getWeight(int key, int i, int criteria);
+
+	/**
+	 * Gets the number of incoming edges of a vertex (the same as getDegree in an undirected graph)
+	 * @param key The key of the vertex
+	 * @return The number of incoming edges
+	 */
+	abstract int getInDegree(int key);
+
+	/**
+	 * Gets the vertex at the start of an incoming edge
+	 * @param key The key of the vertex
+	 * @param i The position of the edge, between 0 and getInDegree(key)
+	 * @return The key of the neighbour
+	 */
+	abstract int getSource(int key, int i);
+
+	/**
+	 * Gets a weight of an incoming edge
+	 * @param key The key of the vertex
+	 * @param i The position of the edge, between 0 and getInDegree(key)
+	 * @param criteria The weight to get (distance or time)
+	 * @return The weight
+	 */
+	abstract double getInWeight(int key, int i, int criteria);
+
+	/**
+	 * Gets the first coordinate of a vertex (the longitude, in degrees, for geographic graphs)
+	 * @param key The key of the vertex, as passed to a Heuristic
+	 * @return The coordinate, NaN if the vertex has no coordinates
+	 */
+	public abstract double getX(int key);
+
+	/**
+	 * Gets the second coordinate of a vertex (the latitude, in degrees, for geographic graphs)
+	 * @param key The key of the vertex, as passed to a Heuristic
+	 * @return The coordinate, NaN if the vertex has no coordinates
+	 */
+	public abstract double getY(int key);
+
+	/**
+	 * Gets a Vertex for the passed key, to be handed to the caller of a query
+	 * @param key The key of the vertex
+	 * @return The vertex
+	 */
+	Vertex toVertex(int key) {
+		return new Vertex(getIdentifier(key));
+	}
+
+	/**
+	 * Checks if a vertex with the passed ID exists in this graph
+	 * @param id The ID to check
+	 * @return true if vertex exists, false otherwise
+	 */
+	public boolean checkExistsVertex(String id) {
+		return id != null && getKey(id) != -1;
+	}
+
+	/**
+	 * Return the weight of the edge that exists between the mentioned nodes
+	 * @param start The key of the vertex at which to start
+	 * @param end The key of the destination vertex
+	 * @param criteria The weight to obtain (distance or time)
+	 * @return The weight of the aforementioned edge, 0 if there's no such edge
+	 */
+	double getEdgeWeight(int start, int end, int criteria) {
+		int i = findEdge(start, end);
+		return (i == -1) ? 0 : getWeight(start, i, criteria);
+	}
+
+	/**
+	 * Gets the position of the edge between the mentioned nodes among the outgoing edges of start
+	 * @param start The key of the vertex at which the edge starts
+	 * @param end The key of the vertex at which the edge ends
+	 * @return The position, -1 if there's no such edge
+	 */
+	int findEdge(int start, int end) {
+		for (int i = 0; i < getDegree(start); i++) {
+			if (getTarget(start, i) == end)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the mentioned vertex and the ones that can be reached from it for less than range
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @return An ArrayList with all the visited vertex, in order of cost, null if the vertex doesn't exist
+	 */
+	public ArrayList<Vertex> rangedDfs(String id, double range, int criteria) {
+		Isochrone isochrone = isochrone(id, range, criteria);
+		return (isochrone == null) ? null : isochrone.getVertex();
+	}
+
+	/**
+	 * Gets the mentioned vertex and the ones that can be reached from it for less than range, with the cost of
+	 * each. The search is a dijkstra that settles every vertex once and never goes past range
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @return The vertex reached and their costs, null if the vertex doesn't exist
+	 */
+	public Isochrone isochrone(String id, double range, int criteria) {
+		return isochrone(id, range, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the mentioned vertex and the ones that can be reached from it for less than range, with the cost of
+	 * each. The search is a dijkstra that settles every vertex once and never goes past range
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return The vertex reached and their costs, null if the vertex doesn't exist
+	 */
+	public Isochrone isochrone(String id, double range, int criteria, QueryWorkspace workspace) {
+		int key = getKey(id);
+		if (key == -1) {
+			return null;
+		}
+		Isochrone isochrone = new Isochrone(this, criteria, range);
+		boundedSearch(key, range, criteria, workspace, isochrone, null);
+		return isochrone;
+	}
+
+	/**
+	 * Gets the vertex of isochrone as a set, marking them in a bitset during the search
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @return The vertex reached, null if the vertex doesn't exist
+	 */
+	public VertexSet insideIsochrone(String id, double range, int criteria) {
+		return insideIsochrone(id, range, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the vertex of isochrone as a set, marking them in a bitset during the search
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return The vertex reached, null if the vertex doesn't exist
+	 */
+	public VertexSet insideIsochrone(String id, double range, int criteria, QueryWorkspace workspace) {
+		VertexSet outside = outsideIsochrone(id, range, criteria, workspace);
+		return (outside == null) ? null : outside.complement();
+	}
+
+	/**
+	 * Gets the vertex that can't be reached from the mentioned vertex for less than range, the ones isochrone
+	 * leaves out. The vertex reached are only marked in a bitset, and the set returned is its complement
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @return The vertex not reached, null if the vertex doesn't exist
+	 */
+	public VertexSet outsideIsochrone(String id, double range, int criteria) {
+		return outsideIsochrone(id, range, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the vertex that can't be reached from the mentioned vertex for less than range, the ones isochrone
+	 * leaves out. The vertex reached are only marked in a bitset, and the set returned is its complement
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return The vertex not reached, null if the vertex doesn't exist
+	 */
+	public VertexSet outsideIsochrone(String id, double range, int criteria, QueryWorkspace workspace) {
+		int key = getKey(id);
+		if (key == -1) {
+			return null;
+		}
+		long[] reached = VertexSet.newWords(this);
+		boundedSearch(key, range, criteria, workspace, null, reached);
+		return new VertexSet(this, reached, true);
+	}
+
+	/**
+	 * Runs dijkstra from source, settling only source and the vertex whose cost is below range
+	 * @param source The key of the vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to use, which holds the cost of every vertex reached afterwards
+	 * @param result Gets every settled vertex, in order of cost. May be null
+	 * @param reached Bits of a VertexSet, set for every settled vertex. May be null
+	 */
+	void boundedSearch(int source, double range, int criteria, QueryWorkspace workspace, Isochrone result,
+			long[] reached) {
+		QueryWorkspace.Side tree = workspace.reset(getNumKeys()).forward.prepare();
+		IndexedMinHeap pq = tree.heap();
+		tree.set(source, 0.0, -1);
+
+		pq.addOrDecrease(source, 0.0);
+		while (!pq.isEmpty()) {
+			int current = pq.poll();
+			double base = tree.getValue(current);
+			if (result != null)
+				result.add(current, base);
+			if (reached != null)
+				VertexSet.set(reached, current);
+			for (int i = 0; i < getDegree(current); i++) {
+				int to = getTarget(current, i);
+				double value = getWeight(current, i, criteria) + base;
+				// vertex at range or beyond never enter the frontier
+				if (value < range && tree.getValue(to) > value) {
+					tree.set(to, value, current);
+					pq.addOrDecrease(to, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Uses outsideIsochrone to return all of the vertex that weren't visited
+	 * @param id The vertex from which to start
+	 * @param range The weight at which to stop
+	 * @param criteria The weight to use (distance or time)
+	 * @return An ArrayList with all the vertex that weren't visited, null if the vertex doesn't exist
+	 */
+	public ArrayList<Vertex> invertedRangedDfs(String id, double range, int criteria) {
+		VertexSet outside = outsideIsochrone(id, range, criteria);
+		if (outside == null) {
+			return null;
+		}
+		ArrayList<Vertex> notVisited = new ArrayList<Vertex>();
+		for (int key = outside.next(0); key != -1; key = outside.next(key + 1)) {
+			notVisited.add(toVertex(key));
+		}
+		return notVisited;
+	}
+
+	/**
+	 * Gets the vertex that exist in both of the passed ArrayLists, by intersecting their VertexSets. Only the vertex
+	 * of this graph are considered
+	 * @param v1 first ArrayList
+	 * @param v2 second ArrayList
+	 * @return An ArrayList with all of the common vertex, in the order of v1
+	 */
+	public ArrayList<Vertex> getCommonVertex(ArrayList<Vertex> v1, ArrayList<Vertex> v2){
+		VertexSet common = VertexSet.of(this, v1).and(VertexSet.of(this, v2));
+		ArrayList<Vertex> vTemp = new ArrayList<Vertex>();
+		for(Vertex v: v1){
+			if(common.contains(v.getIdentifier())){
+				vTemp.add(v);
+			}
+		}
+		return vTemp;
+	}
+
+	/**
+	 * Gets the shortest path from origin to destination that goes through passing
+	 * @param origin Vertex at which to start
+	 * @param destination Destination vertex
+	 * @param passing Vertex the path has to go through
+	 * @param criteria The weight to use (distance or time)
+	 * @return A graph containing the path
+	 */
+	public Graph passing(String origin, String destination, String passing, int criteria) {
+		Graph result = new Graph(isDirected());
+
+		Graph firstLeg = bidirectionalDijkstra(origin, passing, criteria);
+		Graph secondLeg = bidirectionalDijkstra(passing, destination, criteria);
+
+		for (Vertex v : firstLeg.getVertex()) {
+			for (Edge e : v.getEdges()) {
+				if (e.isDirected()) {
+					result.addEdge(e.getFrom(), e.getTo(), e.getWeight(), true);
+				} else {
+					result.addEdge(e.getV1(), e.getV2(), e.getWeight(), true);
+				}
+			}
+		}
+
+		for (Vertex v : secondLeg.getVertex()) {
+			for (Edge e : v.getEdges()) {
+				if (e.isDirected()) {
+					result.addEdge(e.getFrom(), e.getTo(), e.getWeight(), true);
+				} else {
+					result.addEdge(e.getV1(), e.getV2(), e.getWeight(), true);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the shortest path from the mentioned vertex to all other vertex
+	 * @param id The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @return A graph with only the shortest paths from the mentioned node to all other nodes
+	 */
+	public Graph dijkstra(String id, int criteria) {
+		return dijkstra(id, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the shortest path from the mentioned vertex to all other vertex
+	 * @param id The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return A graph with only the shortest paths from the mentioned node to all other nodes
+	 */
+	public Graph dijkstra(String id, int criteria, QueryWorkspace workspace) {
+		int source = getKey(id);
+		if (source == -1) {
+			return null;
+		}
+		shortestPathTree(source, criteria, false, workspace);
+		return toTreeGraph(workspace.forward);
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph dijkstraYen(String start, String end, int criteria) {
+		return dijkstraYen(start, end, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph dijkstraYen(String start, String end, int criteria, QueryWorkspace workspace) {
+		int startKey = getKey(start);
+		int endKey = getKey(end);
+		if (startKey == -1 || endKey == -1) {
+			return new Graph(isDirected());
+		}
+		return toPathGraph(shortestPath(startKey, endKey, criteria, workspace));
+	}
+
+	/**
+	 * Gets the cost of the shortest path between the mentioned vertex, without building the path
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return The cost, Double.POSITIVE_INFINITY if there's no path or one of the vertex doesn't exist
+	 */
+	public double getDistance(String start, String end, int criteria, QueryWorkspace workspace) {
+		int startKey = getKey(start);
+		int endKey = getKey(end);
+		if (startKey == -1 || endKey == -1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return new BidirectionalDijkstra(this, criteria, workspace).distance(startKey, endKey);
+	}
+
+	/**
+	 * Gets every Pareto-optimal path between the mentioned vertex: the paths for which there's no other path at
+	 * least as good in all of the criteria and better in one. Only one path is returned for each cost
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weights to optimise together (distance, time or ones added to the graph)
+	 * @return An ArrayList with Graphs containing the paths, in lexicographic order of their costs (by the first
+	 *         criteria, then the second, ...). Empty if there's no path or one of the vertex doesn't exist
+	 */
+	public ArrayList<Graph> paretoPaths(String start, String end, int... criteria) {
+		return paretoPaths(start, end, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets every Pareto-optimal path between the mentioned vertex: the paths for which there's no other path at
+	 * least as good in all of the criteria and better in one. Only one path is returned for each cost
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weights to optimise together (distance, time or ones added to the graph)
+	 * @param workspace The search state to reuse for the bounds of the search
+	 * @return An ArrayList with Graphs containing the paths, in lexicographic order of their costs (by the first
+	 *         criteria, then the second, ...). Empty if there's no path or one of the vertex doesn't exist
+	 */
+	public ArrayList<Graph> paretoPaths(String start, String end, int[] criteria, QueryWorkspace workspace) {
+		if (criteria.length == 0)
+			throw new IllegalArgumentException("At least one criteria is needed");
+		ArrayList<Graph> paths = new ArrayList<Graph>();
+		int startKey = getKey(start);
+		int endKey = getKey(end);
+		if (startKey == -1 || endKey == -1) {
+			return paths;
+		}
+		for (int[] path : new ParetoSearch(this, criteria, workspace).find(startKey, endKey)) {
+			paths.add(toPathGraph(path));
+		}
+		return paths;
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex, searching from both of them at the same time. Gives the
+	 * same result as dijkstraYen but usually settles far fewer vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph bidirectionalDijkstra(String start, String end, int criteria) {
+		return bidirectionalDijkstra(start, end, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex, searching from both of them at the same time. Gives the
+	 * same result as dijkstraYen but usually settles far fewer vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph bidirectionalDijkstra(String start, String end, int criteria, QueryWorkspace workspace) {
+		int startKey = getKey(start);
+		int endKey = getKey(end);
+		if (startKey == -1 || endKey == -1) {
+			return new Graph(isDirected());
+		}
+		return toPathGraph(new BidirectionalDijkstra(this, criteria, workspace).find(startKey, endKey));
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex with A*, which expands first the vertex that the heuristic
+	 * says are closer to end. The heuristic must never overestimate the remaining cost, otherwise the path found
+	 * may not be the shortest
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param heuristic Lower bound of the remaining cost, for the chosen criteria (see Heuristics)
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph aStar(String start, String end, int criteria, Heuristic heuristic) {
+		return aStar(start, end, criteria, heuristic, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex with A*, which expands first the vertex that the heuristic
+	 * says are closer to end. The heuristic must never overestimate the remaining cost, otherwise the path found
+	 * may not be the shortest
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param heuristic Lower bound of the remaining cost, for the chosen criteria (see Heuristics)
+	 * @param workspace The search state to reuse
+	 * @return A graph containing the shortest path between the two vertex
+	 */
+	public Graph aStar(String start, String end, int criteria, Heuristic heuristic, QueryWorkspace workspace) {
+		int startKey = getKey(start);
+		int endKey = getKey(end);
+		if (startKey == -1 || endKey == -1) {
+			return new Graph(isDirected());
+		}
+		return toPathGraph(new AStar(this, criteria, heuristic, workspace).find(startKey, endKey));
+	}
+
+	/**
+	 * Preprocesses this graph into a contraction hierarchy, which answers shortest path queries much faster than
+	 * dijkstraYen. The hierarchy doesn't follow later changes to the graph, so it's best built from a FrozenGraph
+	 * @param criteria The weight to use (distance or time)
+	 * @return The hierarchy
+	 */
+	public ContractionHierarchy contract(int criteria) {
+		return new ContractionHierarchy(this, criteria);
+	}
+
+	/**
+	 * Picks landmarks and precomputes their distances, to be used as the heuristic of aStar when the vertex have no
+	 * coordinates
+	 * @param criteria The weight to use (distance or time)
+	 * @param count The number of landmarks
+	 * @param selection How the landmarks are picked (Landmarks.FARTHEST or Landmarks.AVOID)
+	 * @return The landmarks
+	 */
+	public Landmarks landmarks(int criteria, int count, int selection) {
+		return new Landmarks(this, criteria, count, selection);
+	}
+
+	/**
+	 * Writes this graph to a file in compressed sparse rows, to be opened again as a MappedGraph. The keys are
+	 * renumbered without the gaps left by removed vertex, like freeze does
+	 * @param file The file, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(File file) throws IOException {
+		MappedGraph.write(this, file);
+	}
+
+	/**
+	 * Copies this graph outside of the Java heap, into direct buffers that the garbage collector doesn't scan. The
+	 * keys are renumbered without the gaps left by removed vertex, like freeze does
+	 * @return The copy, which doesn't follow later changes to this graph
+	 * @throws IllegalArgumentException if the graph is too large to be stored
+	 */
+	public OffHeapGraph toOffHeap() {
+		return OffHeapGraph.copyOf(this);
+	}
+
+	/**
+	 * Runs dijkstra from each of the mentioned vertex in parallel, on the common ForkJoinPool. The graph mustn't
+	 * change while the searches run
+	 * @param ids The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @return An ArrayList with the graphs dijkstra returns for each vertex, in the order of ids
+	 */
+	public ArrayList<Graph> dijkstra(Collection<String> ids, int criteria) {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		return dijkstra(ids, criteria, pool, pool.getParallelism());
+	}
+
+	/**
+	 * Runs dijkstra from each of the mentioned vertex in parallel. The graph mustn't change while the searches run
+	 * @param ids The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @param executor The executor on which to run the searches
+	 * @param threads The number of searches to run at the same time, usually the number of threads of executor
+	 * @return An ArrayList with the graphs dijkstra returns for each vertex, in the order of ids
+	 */
+	public ArrayList<Graph> dijkstra(Collection<String> ids, int criteria, ExecutorService executor, int threads) {
+		int[] sources = new int[ids.size()];
+		int i = 0;
+		for (String id : ids) {
+			sources[i++] = getKey(id);
+		}
+		int workers = Math.max(1, Math.min(threads, sources.length));
+		return new BatchDijkstra(this, criteria, sources).run(executor, workers);
+	}
+
+	/**
+	 * Runs delta-stepping from the mentioned vertex, which splits a single search among the threads of the common
+	 * ForkJoinPool, with the mean edge weight as delta. The graph mustn't change while the search runs
+	 * @param id The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @return The same graph as dijkstra: every vertex, with an edge from the vertex each one is reached from
+	 */
+	public Graph deltaStepping(String id, int criteria) {
+		return deltaStepping(id, criteria, Double.NaN, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs delta-stepping from the mentioned vertex, which splits a single search among the threads of a pool.
+	 * The graph mustn't change while the search runs
+	 * @param id The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @param delta The width of the cost buckets: around the mean edge weight is a good start, lower does less
+	 *        wasted work and higher gives the threads more to do at each step. NaN for the mean edge weight
+	 * @param pool The pool on which to run the search
+	 * @return The same graph as dijkstra: every vertex, with an edge from the vertex each one is reached from
+	 */
+	public Graph deltaStepping(String id, int criteria, double delta, ForkJoinPool pool) {
+		return deltaStepping(id, criteria, delta, pool, QueryWorkspace.local());
+	}
+
+	/**
+	 * Runs delta-stepping from the mentioned vertex, which splits a single search among the threads of a pool.
+	 * The graph mustn't change while the search runs
+	 * @param id The vertex from which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @param delta The width of the cost buckets: around the mean edge weight is a good start, lower does less
+	 *        wasted work and higher gives the threads more to do at each step. NaN for the mean edge weight
+	 * @param pool The pool on which to run the search
+	 * @param workspace The search state to reuse, which the threads of the pool share for this search only
+	 * @return The same graph as dijkstra: every vertex, with an edge from the vertex each one is reached from
+	 */
+	public Graph deltaStepping(String id, int criteria, double delta, ForkJoinPool pool, QueryWorkspace workspace) {
+		if (delta <= 0.0) {
+			throw new IllegalArgumentException("delta must be positive");
+		}
+		int source = getKey(id);
+		if (source == -1) {
+			return null;
+		}
+		return toTreeGraph(new DeltaStepping(this, criteria, delta, pool, workspace).run(source));
+	}
+
+	/**
+	 * Builds the graph returned by dijkstra, with every vertex and an edge from each vertex to the vertex it's
+	 * reached from
+	 * @param tree The side of a workspace holding the predecessors
+	 * @return The graph
+	 */
+	Graph toTreeGraph(QueryWorkspace.Side tree) {
+		return toTreeGraph(tree, null);
+	}
+
+	/**
+	 * Builds the graph returned by dijkstra from a predecessor array
+	 * @param previous The predecessor of each vertex, -1 for the root and the vertex not reached
+	 * @return The graph
+	 */
+	Graph toTreeGraph(int[] previous) {
+		return toTreeGraph(null, previous);
+	}
+
+	/**
+	 * Builds the graph returned by dijkstra from the predecessors held by tree, or by previous if tree is null
+	 */
+	private Graph toTreeGraph(QueryWorkspace.Side tree, int[] previous) {
+		Graph dijkstraGraph = new Graph(isDirected());
+		for (int key = 0; key < getNumKeys(); key++) {
+			if (!exists(key))
+				continue;
+			String identifier = getIdentifier(key);
+			dijkstraGraph.addVertex(identifier);
+			int from = (tree == null) ? previous[key] : tree.getPrevious(key);
+			if (from != -1) {
+				double[] temp = { 0.0, 0.0 };
+				dijkstraGraph.addEdge(getIdentifier(from), identifier, temp, true);
+			}
+		}
+		return dijkstraGraph;
+	}
+
+	/**
+	 * Runs dijkstra from source until every vertex it reaches is settled, leaving the costs and predecessors in
+	 * the forward side of the workspace
+	 * @param source Key of the vertex at which to start
+	 * @param criteria The weight to use (distance or time)
+	 * @param reverse If true the edges are followed backwards, so the costs are the ones to reach source
+	 * @param workspace The search state to use
+	 */
+	void shortestPathTree(int source, int criteria, boolean reverse, QueryWorkspace workspace) {
+		QueryWorkspace.Side tree = workspace.reset(getNumKeys()).forward.prepare();
+		IndexedMinHeap pq = tree.heap();
+		tree.set(source, 0.0, -1);
+
+		pq.addOrDecrease(source, 0.0);
+		while (!pq.isEmpty()) {
+			int current = pq.poll();
+			double base = tree.getValue(current);
+			int degree = reverse ? getInDegree(current) : getDegree(current);
+			for (int i = 0; i < degree; i++) {
+				int to = reverse ? getSource(current, i) : getTarget(current, i);
+				double weight = reverse ? getInWeight(current, i, criteria) : getWeight(current, i, criteria);
+				double value = weight + base;
+				if (tree.getValue(to) > value) {
+					tree.set(to, value, current);
+					pq.addOrDecrease(to, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs dijkstra from start until end is settled
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @return The keys of the vertex in the path, from start to end, or null if end can't be reached
+	 */
+	int[] shortestPath(int start, int end, int criteria) {
+		return shortestPath(start, end, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Runs dijkstra from start until end is settled
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to use
+	 * @return The keys of the vertex in the path, from start to end, or null if end can't be reached
+	 */
+	int[] shortestPath(int start, int end, int criteria, QueryWorkspace workspace) {
+		QueryWorkspace.Side tree = workspace.reset(getNumKeys()).forward.prepare();
+		IndexedMinHeap pq = tree.heap();
+		tree.set(start, 0.0, -1);
+
+		pq.addOrDecrease(start, 0.0);
+		while (!pq.isEmpty()) {
+			int current = pq.poll();
+			if (current == end) {
+				return tree.toPath(end);
+			}
+			double base = tree.getValue(current);
+			for (int i = 0; i < getDegree(current); i++) {
+				int to = getTarget(current, i);
+				double value = getWeight(current, i, criteria) + base;
+				if (tree.getValue(to) > value) {
+					tree.set(to, value, current);
+					pq.addOrDecrease(to, value);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the graph returned for a path, with the vertex added in the order of the path and each edge carrying
+	 * its weights for every criteria of this graph, which the path graph has too. The graph is directed if this
+	 * graph is
+	 * @param path The keys of the vertex in the path, null if there's no path
+	 * @return The graph, empty if there's no path
+	 */
+	Graph toPathGraph(int[] path) {
+		ArrayList<String> criteria = new ArrayList<String>(getNumCriteria());
+		for (int c = 0; c < getNumCriteria(); c++) {
+			criteria.add(getCriteriaName(c));
+		}
+		Graph graph = new Graph(isDirected(), (path == null) ? 0 : path.length, criteria);
+		if (path == null) {
+			return graph;
+		}
+		for (int l = 0; l < (path.length - 1); l++) {
+			int i = findEdge(path[l], path[l + 1]);
+			double[] total = new double[criteria.size()];
+			for (int c = 0; c < total.length; c++) {
+				total[c] = (i == -1) ? 0 : getWeight(path[l], i, c);
+			}
+			graph.addEdge(getIdentifier(path[l]), getIdentifier(path[l + 1]), total, true);
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the requested number of shortest paths between the two mentioned vertex (Yen's algorithm)
+	 * @param startId First vertex
+	 * @param endId Second vertex
+	 * @param nrPaths Number of paths to get
+	 * @param criteria The weight to use (distance or time)
+	 * @return An ArrayList with Graphs containing the requested paths, in order of cost. There may be fewer than
+	 *         nrPaths paths; if there's none, the ArrayList has a single empty graph
+	 */
+	public ArrayList<Graph> yen(String startId, String endId, int nrPaths, int criteria) {
+		return yen(startId, endId, nrPaths, criteria, QueryWorkspace.local());
+	}
+
+	/**
+	 * Returns the requested number of shortest paths between the two mentioned vertex (Yen's algorithm)
+	 * @param startId First vertex
+	 * @param endId Second vertex
+	 * @param nrPaths Number of paths to get
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The search state to reuse
+	 * @return An ArrayList with Graphs containing the requested paths, in order of cost. There may be fewer than
+	 *         nrPaths paths; if there's none, the ArrayList has a single empty graph
+	 */
+	public ArrayList<Graph> yen(String startId, String endId, int nrPaths, int criteria, QueryWorkspace workspace) {
+
+		int start = getKey(startId);
+		int end = getKey(endId);
+		if (start == -1 || end == -1) {
+			return null;
+		}
+
+		ArrayList<Graph> yenArray = new ArrayList<Graph>();
+		for (int[] path : new KShortestPaths(this, criteria, workspace).find(start, end, nrPaths)) {
+			yenArray.add(toPathGraph(path));
+		}
+		if (yenArray.isEmpty()) {
+			yenArray.add(toPathGraph(null));
+		}
+
+		return yenArray;
+
+	}
+}
@@ -0,0 +1,87 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs dijkstra from many sources at once. A fixed number of workers is submitted to the executor, each with its
+ * own QueryWorkspace, and they take the next source from a shared counter until none are left, so a worker that
+ * gets the short searches does more of them.
+ */
+final class BatchDijkstra {
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final int[] sources;
+	private final Graph[] results;
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * @Constructor: Prepares a batch
+	 * @param graph The graph to search, which mustn't change while the batch runs
+	 * @param criteria The weight to use (distance or time)
+	 * @param sources The keys of the sources, -1 for the ones that don't exist
+	 */
+	BatchDijkstra(AbstractGraph graph, int criteria, int[] sources) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.sources = sources;
+		this.results = new Graph[sources.length];
+	}
+
+	/**
+	 * Runs every search
+	 * @param executor The executor to run the workers on
+	 * @param workers The number of workers
+	 * @return The trees, in the order of the sources, null for the sources that don't exist
+	 */
+	ArrayList<Graph> run(ExecutorService executor, int workers) {
+		ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>(workers);
+		for (int w = 0; w < workers; w++) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					work();
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the searches", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			// stops the workers that haven't started yet if one failed
+			this.next.set(this.sources.length);
+		}
+
+		ArrayList<Graph> list = new ArrayList<Graph>(this.results.length);
+		for (Graph result : this.results) {
+			list.add(result);
+		}
+		return list;
+	}
+
+	private void work() {
+		QueryWorkspace workspace = QueryWorkspace.local();
+		int i;
+		while ((i = this.next.getAndIncrement()) < this.sources.length) {
+			if (this.sources[i] == -1)
+				continue;
+			this.graph.shortestPathTree(this.sources[i], this.criteria, false, workspace);
+			this.results[i] = this.graph.toTreeGraph(workspace.forward);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Single pair shortest path search that grows a Dijkstra ball forwards from the start and another one backwards
+ * from the end (over the incoming edges in a directed graph), always expanding the side with the smaller frontier
+ * value. It stops once the two frontiers together can't improve the best meeting point found so far. An instance
+ * belongs to a single query.
+ */
+final class BidirectionalDijkstra {
+	private final AbstractGraph graph;
+	private final int criteria;
+
+	private final QueryWorkspace workspace;
+	private QueryWorkspace.Side forward;
+	private QueryWorkspace.Side backward;
+
+	private double best;
+	private int meeting;
+
+	/**
+	 * @Constructor: Creates the search state for one query
+	 * @param graph The graph to search
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The arrays to use for the search, the backward side keeping the next vertex of each path
+	 */
+	BidirectionalDijkstra(AbstractGraph graph, int criteria, QueryWorkspace workspace) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.workspace = workspace;
+	}
+
+	/**
+	 * Gets the shortest path from start to end
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @return The keys of the vertex in the path, from start to end, or null if end can't be reached
+	 */
+	int[] find(int start, int end) {
+		search(start, end);
+		if (this.meeting == -1) {
+			return null;
+		}
+		return join();
+	}
+
+	/**
+	 * Gets the cost of the shortest path from start to end, without building it
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @return The cost, Double.POSITIVE_INFINITY if end can't be reached
+	 */
+	double distance(int start, int end) {
+		search(start, end);
+		return this.best;
+	}
+
+	private void search(int start, int end) {
+		this.workspace.reset(this.graph.getNumKeys());
+		this.forward = this.workspace.forward.prepare();
+		this.backward = this.workspace.backward.prepare();
+		IndexedMinHeap forwardHeap = this.forward.heap();
+		IndexedMinHeap backwardHeap = this.backward.heap();
+		this.best = Double.POSITIVE_INFINITY;
+		this.meeting = -1;
+
+		this.forward.set(start, 0.0, -1);
+		forwardHeap.addOrDecrease(start, 0.0);
+		this.backward.set(end, 0.0, -1);
+		backwardHeap.addOrDecrease(end, 0.0);
+		if (start == end) {
+			this.best = 0.0;
+			this.meeting = start;
+		}
+
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+			double forwardTop = forwardHeap.peekPriority();
+			double backwardTop = backwardHeap.peekPriority();
+			if (forwardTop + backwardTop >= this.best)
+				break;
+			if (forwardTop <= backwardTop) {
+				expandForward();
+			} else {
+				expandBackward();
+			}
+		}
+	}
+
+	private void expandForward() {
+		int current = this.forward.heap().poll();
+		double base = this.forward.getValue(current);
+		for (int i = 0; i < this.graph.getDegree(current); i++) {
+			int to = this.graph.getTarget(current, i);
+			double value = base + this.graph.getWeight(current, i, this.criteria);
+			if (this.forward.getValue(to) > value) {
+				this.forward.set(to, value, current);
+				this.forward.heap().addOrDecrease(to, value);
+			}
+			double through = this.forward.getValue(to) + this.backward.getValue(to);
+			if (through < this.best) {
+				this.best = through;
+				this.meeting = to;
+			}
+		}
+	}
+
+	private void expandBackward() {
+		int current = this.backward.heap().poll();
+		double base = this.backward.getValue(current);
+		for (int i = 0; i < this.graph.getInDegree(current); i++) {
+			int from = this.graph.getSource(current, i);
+			double value = base + this.graph.getInWeight(current, i, this.criteria);
+			if (this.backward.getValue(from) > value) {
+				this.backward.set(from, value, current);
+				this.backward.heap().addOrDecrease(from, value);
+			}
+			double through = this.forward.getValue(from) + this.backward.getValue(from);
+			if (through < this.best) {
+				this.best = through;
+				this.meeting = from;
+			}
+		}
+	}
+
+	private int[] join() {
+		int[] head = this.forward.toPath(this.meeting);
+		int length = head.length;
+		for (int key = this.backward.getPrevious(this.meeting); key != -1; key = this.backward.getPrevious(key)) {
+			length++;
+		}
+		int[] path = Arrays.copyOf(head, length);
+		int i = head.length;
+		for (int key = this.backward.getPrevious(this.meeting); key != -1; key = this.backward.getPrevious(key)) {
+			path[i++] = key;
+		}
+		return path;
+	}
+}
@@ -0,0 +1,714 @@
+package Graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Graph that can be changed by several threads while others run queries on it. Queries run on a snapshot, an
+ * immutable version of the graph taken without blocking, which later changes don't affect. Each change builds new
+ * records for the vertex it touches and publishes a new version that shares everything else with the previous one.
+ *
+ * A change locks the vertex it touches, so changes to different vertex are made in parallel; only publishing the
+ * new version is serialized, and it costs a few small array copies.
+ */
+public class ConcurrentGraph {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+	private static final int STRIPES = 1024;
+
+	private final boolean directed;
+	// keys are given once per ID and kept after the vertex is removed, so old versions can still look them up
+	private final ConcurrentHashMap<String, Integer> index = new ConcurrentHashMap<String, Integer>();
+	private int nextKey;
+	private final AtomicReference<Version> current;
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+	/**
+	 * @Constructor: Creates an empty undirected graph
+	 */
+	public ConcurrentGraph() {
+		this(false);
+	}
+
+	/**
+	 * @Constructor: Creates an empty graph
+	 * @param directed true if the graph is directed, false otherwise
+	 */
+	public ConcurrentGraph(boolean directed) {
+		this.directed = directed;
+		this.current = new AtomicReference<Version>(new Version(directed, this.index, new Object[WIDTH], 0, 0, 0,
+				AbstractGraph.BUILT_IN_CRITERIA.clone()));
+		for (int l = 0; l < STRIPES; l++) {
+			this.locks[l] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Gets the current version of the graph, on which every query of AbstractGraph can run. It never changes, so a
+	 * query sees the graph as it was when the snapshot was taken
+	 * @return The snapshot
+	 */
+	public AbstractGraph snapshot() {
+		return this.current.get();
+	}
+
+	/**
+	 * Checks if this graph is directed
+	 * @return true if directed, false otherwise
+	 */
+	public boolean isDirected() {
+		return this.directed;
+	}
+
+	/**
+	 * Gets the number of vertex in the current version of this graph
+	 * @return The number of vertex
+	 */
+	public int getNumVertex() {
+		return this.current.get().getNumVertex();
+	}
+
+	/**
+	 * Gets the number of weights of each edge in the current version of this graph
+	 * @return The number of criteria: distance, time and the ones added to the graph
+	 */
+	public int getNumCriteria() {
+		return this.current.get().getNumCriteria();
+	}
+
+	/**
+	 * Gets the weight criteria with the passed name, to be passed to the searches
+	 * @param name The name of the criteria ("distance", "time" or one added to the graph)
+	 * @return The criteria, -1 if the graph doesn't have it
+	 */
+	public int getCriteria(String name) {
+		return this.current.get().getCriteria(name);
+	}
+
+	/**
+	 * Adds a weight criteria, such as a toll or the energy used, to every edge. The existing edges get a weight of 0
+	 * for the new criteria; the edges added afterwards take it from the position of the returned criteria in their
+	 * weights. Every other change waits while the records of all the vertex are copied with the new weights, and
+	 * the snapshots taken before don't have the criteria
+	 * @param name The name of the criteria
+	 * @return The criteria to pass to the searches, the existing one if the graph already had a criteria with
+	 *         this name
+	 */
+	public int addCriteria(String name) {
+		int[] all = new int[STRIPES];
+		for (int l = 0; l < STRIPES; l++) {
+			all[l] = l;
+		}
+		int[] stripes = lock(all);
+		try {
+			Version version = this.current.get();
+			int existing = version.getCriteria(name);
+			if (existing != -1)
+				return existing;
+			// no other change can publish while every lock is held
+			this.current.set(version.withCriteria(name));
+			return version.getNumCriteria();
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	/**
+	 * Adds a vertex to the graph
+	 * @param id The ID of the vertex
+	 * @return true if added, false if it already existed
+	 */
+	public boolean addVertex(String id) {
+		if (id == null)
+			return false;
+		int key = keyOf(id);
+		int[] stripes = lock(key);
+		try {
+			Version version = this.current.get();
+			if (version.entry(key) != null)
+				return false;
+			publish(new int[] { key }, new Entry[] { new Entry(id, key, version.getNumCriteria()) }, 1);
+			return true;
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	/**
+	 * Adds an edge to the mentioned vertex
+	 * @param v1 first vertex
+	 * @param v2 second vertex
+	 * @param w weights for the edge, in the order of the criteria (the missing ones are 0)
+	 * @param force if true and one of the passed IDs doesn't correspond to a vertex, the vertex will be created
+	 * @return true if the edge is created, false if not
+	 */
+	public boolean addEdge(String v1, String v2, double[] w, boolean force) {
+		if (v1 == null || v2 == null)
+			return false;
+		if (force) {
+			addVertex(v1);
+			addVertex(v2);
+		}
+		Integer a = this.index.get(v1);
+		Integer b = this.index.get(v2);
+		if (a == null || b == null)
+			return false;
+
+		int[] stripes = lock(a, b);
+		try {
+			Version version = this.current.get();
+			Entry from = version.entry(a);
+			Entry to = version.entry(b);
+			if (from == null || to == null || from.findTarget(b) != -1)
+				return false;
+
+			from = from.withTarget(b, w);
+			if (a.intValue() == b.intValue()) {
+				publish(new int[] { a }, new Entry[] { this.directed ? from.withSource(a, w) : from }, 0);
+			} else {
+				to = this.directed ? to.withSource(a, w) : to.withTarget(a, w);
+				publish(new int[] { a, b }, new Entry[] { from, to }, 0);
+			}
+			return true;
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	/**
+	 * Removes the edge that connects the mentioned vertex
+	 * @param v1 first vertex
+	 * @param v2 second vertex
+	 * @return true if the edge is removed, false otherwise
+	 */
+	public boolean removeEdge(String v1, String v2) {
+		if (v1 == null || v2 == null)
+			return false;
+		Integer a = this.index.get(v1);
+		Integer b = this.index.get(v2);
+		if (a == null || b == null)
+			return false;
+
+		int[] stripes = lock(a, b);
+		try {
+			Version version = this.current.get();
+			Entry from = version.entry(a);
+			Entry to = version.entry(b);
+			if (from == null || to == null)
+				return false;
+
+			int i = from.findTarget(b);
+			if (i != -1)
+				from = from.withoutTarget(i);
+			if (a.intValue() == b.intValue()) {
+				if (this.directed && (i = from.findSource(a)) != -1)
+					from = from.withoutSource(i);
+				publish(new int[] { a }, new Entry[] { from }, 0);
+			} else {
+				i = this.directed ? to.findSource(a) : to.findTarget(a);
+				if (i != -1)
+					to = this.directed ? to.withoutSource(i) : to.withoutTarget(i);
+				publish(new int[] { a, b }, new Entry[] { from, to }, 0);
+			}
+			return true;
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	/**
+	 * Removes the mentioned vertex from the graph, removing also all of the associated edges
+	 * @param id The ID of the vertex
+	 * @return true if removed, false if it didn't exist
+	 */
+	public boolean removeVertex(String id) {
+		if (id == null)
+			return false;
+		Integer key = this.index.get(id);
+		if (key == null)
+			return false;
+
+		while (true) {
+			Entry vertex = this.current.get().entry(key);
+			if (vertex == null)
+				return false;
+			int[] neighbours = Arrays.copyOf(vertex.targets, vertex.targets.length + vertex.sources.length + 1);
+			System.arraycopy(vertex.sources, 0, neighbours, vertex.targets.length, vertex.sources.length);
+			neighbours[neighbours.length - 1] = key;
+
+			int[] stripes = lock(neighbours);
+			try {
+				Version version = this.current.get();
+				// an edge to the vertex was added or removed before the locks were taken
+				if (version.entry(key) != vertex)
+					continue;
+
+				Map<Integer, Entry> changed = new HashMap<Integer, Entry>();
+				for (int t : vertex.targets) {
+					if (t == key)
+						continue;
+					Entry other = changed.containsKey(t) ? changed.get(t) : version.entry(t);
+					changed.put(t, this.directed ? other.withoutSource(other.findSource(key))
+							: other.withoutTarget(other.findTarget(key)));
+				}
+				for (int s : vertex.sources) {
+					if (s == key)
+						continue;
+					Entry other = changed.containsKey(s) ? changed.get(s) : version.entry(s);
+					changed.put(s, other.withoutTarget(other.findTarget(key)));
+				}
+
+				int[] keys = new int[changed.size() + 1];
+				Entry[] entries = new Entry[keys.length];
+				int i = 0;
+				for (Map.Entry<Integer, Entry> e : changed.entrySet()) {
+					keys[i] = e.getKey();
+					entries[i++] = e.getValue();
+				}
+				keys[i] = key;
+				publish(keys, entries, -1);
+				return true;
+			} finally {
+				unlock(stripes);
+			}
+		}
+	}
+
+	/**
+	 * Changes a weight of the edge between the mentioned vertex
+	 * @param v1 first vertex
+	 * @param v2 second vertex
+	 * @param weight The new weight
+	 * @param criteria The weight to change (distance, time or one added to the graph)
+	 * @return true if changed, false if there's no such edge or criteria
+	 */
+	public boolean setEdgeWeight(String v1, String v2, double weight, int criteria) {
+		// criteria are never removed, so one that exists now still exists once the locks are taken
+		if (v1 == null || v2 == null || criteria < 0 || criteria >= getNumCriteria())
+			return false;
+		Integer a = this.index.get(v1);
+		Integer b = this.index.get(v2);
+		if (a == null || b == null)
+			return false;
+
+		int[] stripes = lock(a, b);
+		try {
+			Version version = this.current.get();
+			Entry from = version.entry(a);
+			Entry to = version.entry(b);
+			int i = (from == null || to == null) ? -1 : from.findTarget(b);
+			if (i == -1)
+				return false;
+
+			from = from.withWeight(i, weight, criteria);
+			if (a.intValue() == b.intValue()) {
+				if (this.directed)
+					from = from.withInWeight(from.findSource(a), weight, criteria);
+				publish(new int[] { a }, new Entry[] { from }, 0);
+			} else {
+				to = this.directed ? to.withInWeight(to.findSource(a), weight, criteria)
+						: to.withWeight(to.findTarget(a), weight, criteria);
+				publish(new int[] { a, b }, new Entry[] { from, to }, 0);
+			}
+			return true;
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	/**
+	 * Sets the coordinates of a vertex, used by the heuristics of A*
+	 * @param id The ID of the vertex
+	 * @param x The first coordinate (the longitude, in degrees, for geographic graphs)
+	 * @param y The second coordinate (the latitude, in degrees, for geographic graphs)
+	 * @return true if set, false if there's no such vertex
+	 */
+	public boolean setCoordinates(String id, double x, double y) {
+		if (id == null)
+			return false;
+		Integer key = this.index.get(id);
+		if (key == null)
+			return false;
+		int[] stripes = lock(key);
+		try {
+			Entry vertex = this.current.get().entry(key);
+			if (vertex == null)
+				return false;
+			publish(new int[] { key }, new Entry[] { vertex.withCoordinates(x, y) }, 0);
+			return true;
+		} finally {
+			unlock(stripes);
+		}
+	}
+
+	private int keyOf(String id) {
+		Integer key = this.index.get(id);
+		if (key != null)
+			return key;
+		synchronized (this.index) {
+			key = this.index.get(id);
+			if (key == null) {
+				key = this.nextKey++;
+				this.index.put(id, key);
+			}
+			return key;
+		}
+	}
+
+	/**
+	 * Locks the stripes of the passed keys, in ascending order so that two changes can't wait for each other
+	 * @return The stripes locked, to pass to unlock
+	 */
+	private int[] lock(int... keys) {
+		int[] stripes = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			stripes[i] = keys[i] & (STRIPES - 1);
+		}
+		Arrays.sort(stripes);
+		int unique = 0;
+		for (int i = 0; i < stripes.length; i++) {
+			if (i == 0 || stripes[i] != stripes[i - 1])
+				stripes[unique++] = stripes[i];
+		}
+		stripes = Arrays.copyOf(stripes, unique);
+		for (int stripe : stripes) {
+			this.locks[stripe].lock();
+		}
+		return stripes;
+	}
+
+	private void unlock(int[] stripes) {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			this.locks[stripes[i]].unlock();
+		}
+	}
+
+	/**
+	 * Publishes a version with the passed records replaced. The caller holds the locks of the keys, so the records
+	 * are still right if another change was published first, and only the copying is done again
+	 * @param keys The keys of the records
+	 * @param entries The new records, null to remove the vertex
+	 * @param vertexDelta The change in the number of vertex
+	 */
+	private void publish(int[] keys, Entry[] entries, int vertexDelta) {
+		while (true) {
+			Version version = this.current.get();
+			if (this.current.compareAndSet(version, version.with(keys, entries, vertexDelta)))
+				return;
+		}
+	}
+
+	/**
+	 * Immutable record of a vertex and its edges, with the weights of each criteria in an array of their own
+	 */
+	private static final class Entry {
+		private static final int[] NO_KEYS = new int[0];
+		private static final double[] NO_WEIGHTS = new double[0];
+
+		final String identifier;
+		final int key;
+		final double x;
+		final double y;
+		final int[] targets;
+		final double[][] weights;
+		// only used by directed graphs
+		final int[] sources;
+		final double[][] inWeights;
+
+		Entry(String identifier, int key, int criteria) {
+			this(identifier, key, Double.NaN, Double.NaN, NO_KEYS, noWeights(criteria), NO_KEYS, noWeights(criteria));
+		}
+
+		Entry(String identifier, int key, double x, double y, int[] targets, double[][] weights, int[] sources,
+				double[][] inWeights) {
+			this.identifier = identifier;
+			this.key = key;
+			this.x = x;
+			this.y = y;
+			this.targets = targets;
+			this.weights = weights;
+			this.sources = sources;
+			this.inWeights = inWeights;
+		}
+
+		int findTarget(int target) {
+			for (int i = 0; i < this.targets.length; i++) {
+				if (this.targets[i] == target)
+					return i;
+			}
+			return -1;
+		}
+
+		int findSource(int source) {
+			for (int i = 0; i < this.sources.length; i++) {
+				if (this.sources[i] == source)
+					return i;
+			}
+			return -1;
+		}
+
+		Entry withTarget(int target, double[] w) {
+			return new Entry(this.identifier, this.key, this.x, this.y, append(this.targets, target),
+					appendWeights(this.weights, w), this.sources, this.inWeights);
+		}
+
+		Entry withSource(int source, double[] w) {
+			return new Entry(this.identifier, this.key, this.x, this.y, this.targets, this.weights,
+					append(this.sources, source), appendWeights(this.inWeights, w));
+		}
+
+		Entry withoutTarget(int i) {
+			return new Entry(this.identifier, this.key, this.x, this.y, remove(this.targets, i),
+					removeWeights(this.weights, i), this.sources, this.inWeights);
+		}
+
+		Entry withoutSource(int i) {
+			return new Entry(this.identifier, this.key, this.x, this.y, this.targets, this.weights,
+					remove(this.sources, i), removeWeights(this.inWeights, i));
+		}
+
+		Entry withWeight(int i, double weight, int criteria) {
+			return new Entry(this.identifier, this.key, this.x, this.y, this.targets,
+					setWeight(this.weights, i, weight, criteria), this.sources, this.inWeights);
+		}
+
+		Entry withInWeight(int i, double weight, int criteria) {
+			return new Entry(this.identifier, this.key, this.x, this.y, this.targets, this.weights, this.sources,
+					setWeight(this.inWeights, i, weight, criteria));
+		}
+
+		Entry withCoordinates(double x, double y) {
+			return new Entry(this.identifier, this.key, x, y, this.targets, this.weights, this.sources,
+					this.inWeights);
+		}
+
+		/**
+		 * Copies this record with a weight of 0 for a new criteria on each of its edges
+		 */
+		Entry withCriteria() {
+			return new Entry(this.identifier, this.key, this.x, this.y, this.targets,
+					addColumn(this.weights, this.targets.length), this.sources,
+					addColumn(this.inWeights, this.sources.length));
+		}
+
+		private static double[][] noWeights(int criteria) {
+			double[][] weights = new double[criteria][];
+			Arrays.fill(weights, NO_WEIGHTS);
+			return weights;
+		}
+
+		private static int[] append(int[] keys, int key) {
+			int[] copy = Arrays.copyOf(keys, keys.length + 1);
+			copy[keys.length] = key;
+			return copy;
+		}
+
+		private static double[][] appendWeights(double[][] weights, double[] w) {
+			double[][] copy = new double[weights.length][];
+			for (int c = 0; c < weights.length; c++) {
+				copy[c] = Arrays.copyOf(weights[c], weights[c].length + 1);
+				copy[c][weights[c].length] = (w != null && c < w.length) ? w[c] : 0.0;
+			}
+			return copy;
+		}
+
+		private static int[] remove(int[] keys, int i) {
+			int[] copy = new int[keys.length - 1];
+			System.arraycopy(keys, 0, copy, 0, i);
+			System.arraycopy(keys, i + 1, copy, i, copy.length - i);
+			return copy;
+		}
+
+		private static double[][] removeWeights(double[][] weights, int i) {
+			double[][] copy = new double[weights.length][];
+			for (int c = 0; c < weights.length; c++) {
+				copy[c] = new double[weights[c].length - 1];
+				System.arraycopy(weights[c], 0, copy[c], 0, i);
+				System.arraycopy(weights[c], i + 1, copy[c], i, copy[c].length - i);
+			}
+			return copy;
+		}
+
+		private static double[][] setWeight(double[][] weights, int i, double weight, int criteria) {
+			double[][] copy = weights.clone();
+			copy[criteria] = weights[criteria].clone();
+			copy[criteria][i] = weight;
+			return copy;
+		}
+
+		private static double[][] addColumn(double[][] weights, int edges) {
+			double[][] copy = Arrays.copyOf(weights, weights.length + 1);
+			copy[weights.length] = (edges == 0) ? NO_WEIGHTS : new double[edges];
+			return copy;
+		}
+	}
+
+	/**
+	 * Immutable version of the graph. The records are kept in a trie of WIDTH wide arrays indexed by the bits of
+	 * the key, so a new version only copies the arrays on the way to the records that changed
+	 */
+	static final class Version extends AbstractGraph {
+		private final boolean directed;
+		private final ConcurrentHashMap<String, Integer> index;
+		private final Object[] root;
+		private final int shift;
+		private final int numKeys;
+		private final int numVertex;
+		private final String[] criteria;
+
+		Version(boolean directed, ConcurrentHashMap<String, Integer> index, Object[] root, int shift, int numKeys,
+				int numVertex, String[] criteria) {
+			this.directed = directed;
+			this.index = index;
+			this.root = root;
+			this.shift = shift;
+			this.numKeys = numKeys;
+			this.numVertex = numVertex;
+			this.criteria = criteria;
+		}
+
+		Entry entry(int key) {
+			if (key >= this.numKeys)
+				return null;
+			Object[] node = this.root;
+			for (int level = this.shift; level > 0; level -= BITS) {
+				node = (Object[]) node[(key >>> level) & MASK];
+				if (node == null)
+					return null;
+			}
+			return (Entry) node[key & MASK];
+		}
+
+		Version with(int[] keys, Entry[] entries, int vertexDelta) {
+			Object[] root = this.root;
+			int shift = this.shift;
+			int numKeys = this.numKeys;
+			for (int i = 0; i < keys.length; i++) {
+				while (keys[i] >= (1L << (shift + BITS))) {
+					Object[] grown = new Object[WIDTH];
+					grown[0] = root;
+					root = grown;
+					shift += BITS;
+				}
+				root = set(root, shift, keys[i], entries[i]);
+				numKeys = Math.max(numKeys, keys[i] + 1);
+			}
+			return new Version(this.directed, this.index, root, shift, numKeys, this.numVertex + vertexDelta,
+					this.criteria);
+		}
+
+		/**
+		 * Copies this version with a new criteria, copying every node of the trie once
+		 * @param name The name of the criteria
+		 * @return The new version
+		 */
+		Version withCriteria(String name) {
+			String[] criteria = Arrays.copyOf(this.criteria, this.criteria.length + 1);
+			criteria[this.criteria.length] = name;
+			return new Version(this.directed, this.index, withCriteria(this.root, this.shift), this.shift,
+					this.numKeys, this.numVertex, criteria);
+		}
+
+		private static Object[] withCriteria(Object[] node, int shift) {
+			Object[] copy = new Object[WIDTH];
+			for (int i = 0; i < WIDTH; i++) {
+				if (node[i] != null)
+					copy[i] = (shift == 0) ? ((Entry) node[i]).withCriteria()
+							: withCriteria((Object[]) node[i], shift - BITS);
+			}
+			return copy;
+		}
+
+		private static Object[] set(Object[] node, int shift, int key, Entry entry) {
+			Object[] copy = (node == null) ? new Object[WIDTH] : node.clone();
+			int i = (key >>> shift) & MASK;
+			copy[i] = (shift == 0) ? entry : set((Object[]) copy[i], shift - BITS, key, entry);
+			return copy;
+		}
+
+		@Override
+		public boolean isDirected() {
+			return this.directed;
+		}
+
+		@Override
+		public int getNumVertex() {
+			return this.numVertex;
+		}
+
+		@Override
+		public int getNumCriteria() {
+			return this.criteria.length;
+		}
+
+		@Override
+		public String getCriteriaName(int criteria) {
+			return (criteria >= 0 && criteria < this.criteria.length) ? this.criteria[criteria] : null;
+		}
+
+		@Override
+		int getNumKeys() {
+			return this.numKeys;
+		}
+
+		@Override
+		int getKey(String id) {
+			Integer key = (id == null) ? null : this.index.get(id);
+			return (key == null || entry(key) == null) ? -1 : key;
+		}
+
+		@Override
+		String getIdentifier(int key) {
+			Entry entry = entry(key);
+			return (entry == null) ? null : entry.identifier;
+		}
+
+		@Override
+		int getDegree(int key) {
+			return entry(key).targets.length;
+		}
+
+		@Override
+		int getTarget(int key, int i) {
+			return entry(key).targets[i];
+		}
+
+		@Override
+		double getWeight(int key, int i, int criteria) {
+			return entry(key).weights[criteria][i];
+		}
+
+		@Override
+		int getInDegree(int key) {
+			Entry entry = entry(key);
+			return this.directed ? entry.sources.length : entry.targets.length;
+		}
+
+		@Override
+		int getSource(int key, int i) {
+			Entry entry = entry(key);
+			return this.directed ? entry.sources[i] : entry.targets[i];
+		}
+
+		@Override
+		double getInWeight(int key, int i, int criteria) {
+			Entry entry = entry(key);
+			return (this.directed ? entry.inWeights : entry.weights)[criteria][i];
+		}
+
+		@Override
+		public double getX(int key) {
+			return entry(key).x;
+		}
+
+		@Override
+		public double getY(int key) {
+			return entry(key).y;
+		}
+	}
+}
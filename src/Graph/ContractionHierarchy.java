@@ -0,0 +1,527 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies for one weight criteria of a graph. The preprocessing contracts the vertex one at a time,
+ * least important first, adding a shortcut edge u -> w whenever removing v would otherwise lengthen the shortest
+ * path u -> v -> w. A query then only has to climb the hierarchy: a Dijkstra from the start over the edges that go
+ * up in the order, another from the end over the reversed edges that go up, meeting at the most important vertex of
+ * the shortest path. Shortcuts remember the two edges they replace, so the path is unpacked back to edges of the
+ * graph.
+ *
+ * The hierarchy is a copy: it doesn't see later changes to the graph. Queries can run from several threads at once,
+ * each with its own QueryWorkspace.
+ */
+public class ContractionHierarchy {
+	private static final int SIMULATION_SETTLE_LIMIT = 50;
+	private static final int CONTRACTION_SETTLE_LIMIT = 500;
+
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final int[] rank;
+
+	// every edge, the ones from the graph (first == -1) and the shortcuts
+	private int numEdges;
+	private int numShortcuts;
+	private int[] edgeFrom;
+	private int[] edgeTo;
+	private double[] edgeWeight;
+	private int[] edgeFirst;
+	private int[] edgeSecond;
+
+	// upward edges: leaving each vertex towards a higher rank, and arriving at it from a higher rank
+	private final int[] upOffsets;
+	private final int[] upEdges;
+	private final int[] downOffsets;
+	private final int[] downEdges;
+
+	/**
+	 * @Constructor: Runs the preprocessing. The graph shouldn't change while the hierarchy is in use
+	 * @param graph The graph to contract
+	 * @param criteria The weight to use (distance or time)
+	 */
+	public ContractionHierarchy(AbstractGraph graph, int criteria) {
+		this.graph = graph;
+		this.criteria = criteria;
+		int n = graph.getNumKeys();
+		this.rank = new int[n];
+
+		Contraction contraction = new Contraction(n);
+		contraction.run();
+
+		int[] upCount = new int[n + 1];
+		int[] downCount = new int[n + 1];
+		for (int e = 0; e < this.numEdges; e++) {
+			if (this.rank[this.edgeTo[e]] > this.rank[this.edgeFrom[e]]) {
+				upCount[this.edgeFrom[e] + 1]++;
+			} else {
+				downCount[this.edgeTo[e] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			upCount[v + 1] += upCount[v];
+			downCount[v + 1] += downCount[v];
+		}
+		this.upOffsets = upCount;
+		this.downOffsets = downCount;
+		this.upEdges = new int[upCount[n]];
+		this.downEdges = new int[downCount[n]];
+		int[] upFill = Arrays.copyOf(upCount, n);
+		int[] downFill = Arrays.copyOf(downCount, n);
+		for (int e = 0; e < this.numEdges; e++) {
+			if (this.rank[this.edgeTo[e]] > this.rank[this.edgeFrom[e]]) {
+				this.upEdges[upFill[this.edgeFrom[e]]++] = e;
+			} else {
+				this.downEdges[downFill[this.edgeTo[e]]++] = e;
+			}
+		}
+	}
+
+	/**
+	 * Gets the weight used by this hierarchy
+	 * @return The criteria (distance or time)
+	 */
+	public int getCriteria() {
+		return this.criteria;
+	}
+
+	/**
+	 * Gets the number of shortcut edges added by the preprocessing
+	 * @return The number of shortcuts
+	 */
+	public int getNumShortcuts() {
+		return this.numShortcuts;
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex, with the shortcuts unpacked
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @return A graph containing the shortest path between the two vertex, like dijkstraYen
+	 */
+	public Graph shortestPath(String start, String end) {
+		return shortestPath(start, end, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the shortest path between the mentioned vertex, with the shortcuts unpacked
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param workspace The search state to reuse
+	 * @return A graph containing the shortest path between the two vertex, like dijkstraYen
+	 */
+	public Graph shortestPath(String start, String end, QueryWorkspace workspace) {
+		int s = this.graph.getKey(start);
+		int t = this.graph.getKey(end);
+		if (s == -1 || t == -1) {
+			return new Graph(this.graph.isDirected());
+		}
+		int meeting = search(s, t, workspace);
+		return this.graph.toPathGraph((meeting == -1) ? null : unpack(s, t, meeting, workspace));
+	}
+
+	/**
+	 * Gets the cost of the shortest path between the mentioned vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @return The cost, Double.POSITIVE_INFINITY if there's no path or one of the vertex doesn't exist
+	 */
+	public double getDistance(String start, String end) {
+		return getDistance(start, end, QueryWorkspace.local());
+	}
+
+	/**
+	 * Gets the cost of the shortest path between the mentioned vertex
+	 * @param start Vertex at which to start
+	 * @param end Destination vertex
+	 * @param workspace The search state to reuse
+	 * @return The cost, Double.POSITIVE_INFINITY if there's no path or one of the vertex doesn't exist
+	 */
+	public double getDistance(String start, String end, QueryWorkspace workspace) {
+		int s = this.graph.getKey(start);
+		int t = this.graph.getKey(end);
+		if (s == -1 || t == -1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		int meeting = search(s, t, workspace);
+		if (meeting == -1)
+			return Double.POSITIVE_INFINITY;
+		return workspace.forward.getValue(meeting) + workspace.backward.getValue(meeting);
+	}
+
+	private int addEdge(int from, int to, double weight, int first, int second) {
+		if (this.numEdges == this.edgeFrom.length) {
+			int capacity = this.numEdges * 2;
+			this.edgeFrom = Arrays.copyOf(this.edgeFrom, capacity);
+			this.edgeTo = Arrays.copyOf(this.edgeTo, capacity);
+			this.edgeWeight = Arrays.copyOf(this.edgeWeight, capacity);
+			this.edgeFirst = Arrays.copyOf(this.edgeFirst, capacity);
+			this.edgeSecond = Arrays.copyOf(this.edgeSecond, capacity);
+		}
+		this.edgeFrom[this.numEdges] = from;
+		this.edgeTo[this.numEdges] = to;
+		this.edgeWeight[this.numEdges] = weight;
+		this.edgeFirst[this.numEdges] = first;
+		this.edgeSecond[this.numEdges] = second;
+		return this.numEdges++;
+	}
+
+	/**
+	 * State of the preprocessing, dropped once the hierarchy is built
+	 */
+	private final class Contraction {
+		private final int n;
+		private final int[][] out;
+		private final int[] outSize;
+		private final int[][] in;
+		private final int[] inSize;
+		private final boolean[] contracted;
+		private final int[] contractedNeighbours;
+		private final int[] level;
+
+		private final double[] distance;
+		private final IndexedMinHeap heap;
+		private final int[] touched;
+		private int numTouched;
+		private final int[] target;
+		private int search;
+
+		Contraction(int n) {
+			this.n = n;
+			this.out = new int[n][];
+			this.outSize = new int[n];
+			this.in = new int[n][];
+			this.inSize = new int[n];
+			this.contracted = new boolean[n];
+			this.contractedNeighbours = new int[n];
+			this.level = new int[n];
+			this.distance = new double[n];
+			this.heap = new IndexedMinHeap(n);
+			this.touched = new int[n];
+			this.target = new int[n];
+			Arrays.fill(this.distance, Double.POSITIVE_INFINITY);
+
+			int m = 0;
+			for (int v = 0; v < n; v++) {
+				this.out[v] = new int[4];
+				this.in[v] = new int[4];
+				if (graph.exists(v))
+					m += graph.getDegree(v);
+			}
+			edgeFrom = new int[Math.max(16, m * 2)];
+			edgeTo = new int[edgeFrom.length];
+			edgeWeight = new double[edgeFrom.length];
+			edgeFirst = new int[edgeFrom.length];
+			edgeSecond = new int[edgeFrom.length];
+
+			for (int v = 0; v < n; v++) {
+				if (!graph.exists(v))
+					continue;
+				for (int i = 0; i < graph.getDegree(v); i++) {
+					int w = graph.getTarget(v, i);
+					if (w != v) {
+						link(addEdge(v, w, graph.getWeight(v, i, criteria), -1, -1));
+					}
+				}
+			}
+		}
+
+		private void link(int e) {
+			int from = edgeFrom[e];
+			int to = edgeTo[e];
+			if (this.outSize[from] == this.out[from].length)
+				this.out[from] = Arrays.copyOf(this.out[from], this.outSize[from] * 2);
+			this.out[from][this.outSize[from]++] = e;
+			if (this.inSize[to] == this.in[to].length)
+				this.in[to] = Arrays.copyOf(this.in[to], this.inSize[to] * 2);
+			this.in[to][this.inSize[to]++] = e;
+		}
+
+		void run() {
+			IndexedMinHeap order = new IndexedMinHeap(this.n);
+			for (int v = 0; v < this.n; v++) {
+				if (graph.exists(v))
+					order.addOrDecrease(v, priority(v));
+			}
+			int next = 0;
+			for (int v = 0; v < this.n; v++) {
+				if (!graph.exists(v))
+					rank[v] = next++;
+			}
+			while (!order.isEmpty()) {
+				int v = order.poll();
+				// priorities only grow stale, so v is contracted only if it's still the least important
+				double p = priority(v);
+				if (!order.isEmpty() && p > order.peekPriority()) {
+					order.addOrDecrease(v, p);
+					continue;
+				}
+				contract(v, false);
+				this.contracted[v] = true;
+				rank[v] = next++;
+				// the edges of v aren't needed by the rest of the contraction, only by the hierarchy
+				for (int i = 0; i < this.outSize[v]; i++) {
+					int w = edgeTo[this.out[v][i]];
+					this.contractedNeighbours[w]++;
+					this.level[w] = Math.max(this.level[w], this.level[v] + 1);
+					this.inSize[w] = unlink(this.in[w], this.inSize[w], v, edgeFrom);
+				}
+				for (int i = 0; i < this.inSize[v]; i++) {
+					int u = edgeFrom[this.in[v][i]];
+					this.contractedNeighbours[u]++;
+					this.level[u] = Math.max(this.level[u], this.level[v] + 1);
+					this.outSize[u] = unlink(this.out[u], this.outSize[u], v, edgeTo);
+				}
+			}
+		}
+
+		/**
+		 * Removes from a list of edges the ones whose end is v
+		 * @return The new size of the list
+		 */
+		private int unlink(int[] edges, int size, int v, int[] end) {
+			for (int i = 0; i < size; i++) {
+				if (end[edges[i]] == v)
+					edges[i--] = edges[--size];
+			}
+			return size;
+		}
+
+		/**
+		 * Gets how attractive it is to contract v now, lower first
+		 */
+		private double priority(int v) {
+			int removed = 0;
+			for (int i = 0; i < this.outSize[v]; i++) {
+				if (!this.contracted[edgeTo[this.out[v][i]]])
+					removed++;
+			}
+			for (int i = 0; i < this.inSize[v]; i++) {
+				if (!this.contracted[edgeFrom[this.in[v][i]]])
+					removed++;
+			}
+			return 2 * (contract(v, true) - removed) + this.contractedNeighbours[v] + this.level[v];
+		}
+
+		/**
+		 * Adds the shortcuts needed to remove v
+		 * @param v The vertex to contract
+		 * @param simulate If true the shortcuts are only counted
+		 * @return The number of shortcuts
+		 */
+		private int contract(int v, boolean simulate) {
+			int shortcuts = 0;
+			for (int i = 0; i < this.inSize[v]; i++) {
+				int e1 = this.in[v][i];
+				int u = edgeFrom[e1];
+				if (this.contracted[u])
+					continue;
+
+				double maxOut = -1;
+				int targets = 0;
+				this.search++;
+				for (int j = 0; j < this.outSize[v]; j++) {
+					int w = edgeTo[this.out[v][j]];
+					if (!this.contracted[w] && w != u) {
+						maxOut = Math.max(maxOut, edgeWeight[this.out[v][j]]);
+						if (this.target[w] != this.search) {
+							this.target[w] = this.search;
+							targets++;
+						}
+					}
+				}
+				if (maxOut < 0)
+					continue;
+
+				witnessSearch(u, v, edgeWeight[e1] + maxOut, targets,
+						simulate ? SIMULATION_SETTLE_LIMIT : CONTRACTION_SETTLE_LIMIT);
+
+				for (int j = 0; j < this.outSize[v]; j++) {
+					int e2 = this.out[v][j];
+					int w = edgeTo[e2];
+					if (this.contracted[w] || w == u)
+						continue;
+					double via = edgeWeight[e1] + edgeWeight[e2];
+					if (this.distance[w] <= via)
+						continue;
+					shortcuts++;
+					if (!simulate && !hasEdge(u, w, via)) {
+						link(addEdge(u, w, via, e1, e2));
+						numShortcuts++;
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		private boolean hasEdge(int u, int w, double weight) {
+			for (int i = 0; i < this.outSize[u]; i++) {
+				int e = this.out[u][i];
+				if (edgeTo[e] == w && edgeWeight[e] <= weight)
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Dijkstra from source among the vertex not contracted yet, without going through avoid, until the marked
+		 * targets are settled, limit is reached or settleLimit vertex are settled. Leaves the distances found in
+		 * distance
+		 */
+		private void witnessSearch(int source, int avoid, double limit, int targets, int settleLimit) {
+			for (int t = 0; t < this.numTouched; t++) {
+				this.distance[this.touched[t]] = Double.POSITIVE_INFINITY;
+			}
+			this.numTouched = 0;
+			this.heap.clear();
+
+			this.distance[source] = 0.0;
+			this.touched[this.numTouched++] = source;
+			this.heap.addOrDecrease(source, 0.0);
+			int numSettled = 0;
+			while (!this.heap.isEmpty() && numSettled < settleLimit) {
+				if (this.heap.peekPriority() > limit)
+					break;
+				int current = this.heap.poll();
+				numSettled++;
+				if (this.target[current] == this.search && --targets == 0)
+					break;
+				for (int i = 0; i < this.outSize[current]; i++) {
+					int e = this.out[current][i];
+					int to = edgeTo[e];
+					if (to == avoid || this.contracted[to])
+						continue;
+					double value = this.distance[current] + edgeWeight[e];
+					if (this.distance[to] > value) {
+						if (this.distance[to] == Double.POSITIVE_INFINITY)
+							this.touched[this.numTouched++] = to;
+						this.distance[to] = value;
+						this.heap.addOrDecrease(to, value);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs both upward searches. The previous entries of the workspace hold the edge each vertex was reached by
+	 * @return The vertex where the shortest path peaks, -1 if there's no path
+	 */
+	private int search(int s, int t, QueryWorkspace workspace) {
+		workspace.reset(this.rank.length);
+		QueryWorkspace.Side forward = workspace.forward.prepare();
+		QueryWorkspace.Side backward = workspace.backward.prepare();
+		IndexedMinHeap forwardHeap = forward.heap();
+		IndexedMinHeap backwardHeap = backward.heap();
+
+		forward.set(s, 0.0, -1);
+		forwardHeap.addOrDecrease(s, 0.0);
+		backward.set(t, 0.0, -1);
+		backwardHeap.addOrDecrease(t, 0.0);
+
+		double best = (s == t) ? 0.0 : Double.POSITIVE_INFINITY;
+		int meeting = (s == t) ? s : -1;
+		while (true) {
+			boolean forwardDone = forwardHeap.isEmpty() || forwardHeap.peekPriority() >= best;
+			boolean backwardDone = backwardHeap.isEmpty() || backwardHeap.peekPriority() >= best;
+			if (forwardDone && backwardDone)
+				break;
+			boolean goForward = !forwardDone
+					&& (backwardDone || forwardHeap.peekPriority() <= backwardHeap.peekPriority());
+			int v;
+			if (goForward) {
+				v = forwardHeap.poll();
+				double base = forward.getValue(v);
+				for (int i = this.upOffsets[v]; i < this.upOffsets[v + 1]; i++) {
+					int e = this.upEdges[i];
+					int to = this.edgeTo[e];
+					double value = base + this.edgeWeight[e];
+					if (forward.getValue(to) > value) {
+						forward.set(to, value, e);
+						forwardHeap.addOrDecrease(to, value);
+					}
+				}
+			} else {
+				v = backwardHeap.poll();
+				double base = backward.getValue(v);
+				for (int i = this.downOffsets[v]; i < this.downOffsets[v + 1]; i++) {
+					int e = this.downEdges[i];
+					int from = this.edgeFrom[e];
+					double value = base + this.edgeWeight[e];
+					if (backward.getValue(from) > value) {
+						backward.set(from, value, e);
+						backwardHeap.addOrDecrease(from, value);
+					}
+				}
+			}
+			double through = forward.getValue(v) + backward.getValue(v);
+			if (through < best) {
+				best = through;
+				meeting = v;
+			}
+		}
+		return meeting;
+	}
+
+	/**
+	 * Rebuilds the path found by search, replacing every shortcut by the edges it stands for
+	 * @return The keys of the vertex in the path, from s to t
+	 */
+	private int[] unpack(int s, int t, int meeting, QueryWorkspace workspace) {
+		QueryWorkspace.Side forward = workspace.forward;
+		QueryWorkspace.Side backward = workspace.backward;
+		// edges of the hierarchy from s to t: the forward half is followed backwards from the meeting vertex
+		int numUp = 0;
+		for (int v = meeting; v != s; v = this.edgeFrom[forward.getPrevious(v)])
+			numUp++;
+		int numEdges = numUp;
+		for (int v = meeting; v != t; v = this.edgeTo[backward.getPrevious(v)])
+			numEdges++;
+		int[] edges = new int[numEdges];
+		for (int v = meeting, i = numUp; v != s; v = this.edgeFrom[forward.getPrevious(v)])
+			edges[--i] = forward.getPrevious(v);
+		for (int v = meeting, i = numUp; v != t; v = this.edgeTo[backward.getPrevious(v)])
+			edges[i++] = backward.getPrevious(v);
+
+		int[] path = new int[numEdges + 1];
+		int length = 0;
+		path[length++] = s;
+		int[] stack = new int[16];
+		for (int e : edges) {
+			int size = 0;
+			stack[size++] = e;
+			while (size > 0) {
+				int top = stack[--size];
+				if (this.edgeFirst[top] == -1) {
+					if (length == path.length)
+						path = Arrays.copyOf(path, length * 2);
+					path[length++] = this.edgeTo[top];
+				} else {
+					if (size + 2 > stack.length)
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					stack[size++] = this.edgeSecond[top];
+					stack[size++] = this.edgeFirst[top];
+				}
+			}
+		}
+
+		// with edges of weight 0 the unpacked path may go around a loop of cost 0, which is cut out. The search is
+		// over, so the forward side is reused to keep the position of each vertex in the path
+		QueryWorkspace.Side position = workspace.reset(this.rank.length).forward;
+		int kept = 0;
+		for (int i = 0; i < length; i++) {
+			int v = path[i];
+			int at = position.getPrevious(v);
+			if (at != -1) {
+				for (int j = at + 1; j < kept; j++)
+					position.set(path[j], 0.0, -1);
+				kept = at + 1;
+			} else {
+				position.set(v, 0.0, kept);
+				path[kept++] = v;
+			}
+		}
+		return Arrays.copyOf(path, kept);
+	}
+}
@@ -0,0 +1,264 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single source shortest paths with delta-stepping (Meyer and Sanders), which relaxes many vertex at the same time.
+ * The vertex are kept in buckets of width delta by cost. The lowest bucket is emptied by relaxing, in parallel, the
+ * light edges (weight up to delta) of all of its vertex, again and again while that puts vertex back in it; then
+ * the heavy edges of everything it held are relaxed once. A small delta does less useless work, a big one gives
+ * more work to each parallel step.
+ *
+ * The costs are doubles kept as their bits in an AtomicLongArray, which for non-negative doubles sorts the same.
+ * A vertex's cost and predecessor are changed together under one of a set of locks, so the predecessors always
+ * form a tree. An instance belongs to a single query.
+ */
+final class DeltaStepping {
+	private static final int LOCKS = 1024;
+	private static final int MAX_BUCKETS = 1 << 20;
+	// frontiers smaller than this are relaxed by the calling thread
+	private static final int PARALLEL_THRESHOLD = 512;
+
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final ForkJoinPool pool;
+	private final double delta;
+	private final int n;
+
+	private final AtomicLongArray values;
+	private final int[] previous;
+	private final Object[] locks = new Object[LOCKS];
+
+	// used in a cycle: no vertex waits more than (heaviest edge / delta) + 1 buckets after the current one
+	private final IntList[] buckets;
+	private int pending;
+	private final int[] stamp;
+	private int round;
+	// the bucket in whose settled list each vertex was put last
+	private final long[] settledIn;
+
+	/**
+	 * @Constructor: Creates the state for one query
+	 * @param graph The graph to search, which mustn't change while the query runs
+	 * @param criteria The weight to use (distance or time)
+	 * @param delta The width of the buckets, NaN to use the mean edge weight
+	 * @param pool The pool on which to relax the edges
+	 * @param workspace The search state that holds the arrays of each vertex
+	 */
+	DeltaStepping(AbstractGraph graph, int criteria, double delta, ForkJoinPool pool, QueryWorkspace workspace) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.pool = pool;
+		this.n = graph.getNumKeys();
+
+		double max = 0.0;
+		double sum = 0.0;
+		long m = 0;
+		for (int key = 0; key < this.n; key++) {
+			if (!graph.exists(key))
+				continue;
+			for (int i = 0; i < graph.getDegree(key); i++) {
+				double weight = graph.getWeight(key, i, criteria);
+				if (weight != Double.POSITIVE_INFINITY) {
+					max = Math.max(max, weight);
+					sum += weight;
+					m++;
+				}
+			}
+		}
+		if (Double.isNaN(delta))
+			delta = (sum > 0.0) ? sum / m : 1.0;
+		// a delta too small for the weights would need too many buckets
+		this.delta = Math.max(delta, max / (MAX_BUCKETS - 3));
+		// one more than the buckets a relaxation can skip, and one for rounding
+		this.buckets = new IntList[(int) Math.ceil(max / this.delta) + 3];
+		for (int b = 0; b < this.buckets.length; b++) {
+			this.buckets[b] = new IntList();
+		}
+
+		// the arrays of the workspace hold what the previous query left, so every entry is set again
+		workspace.reset(this.n);
+		this.values = workspace.atomicValues();
+		long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+		for (int key = 0; key < this.n; key++) {
+			this.values.set(key, infinity);
+		}
+		this.previous = workspace.predecessors();
+		Arrays.fill(this.previous, 0, this.n, -1);
+		for (int l = 0; l < LOCKS; l++) {
+			this.locks[l] = new Object();
+		}
+		this.stamp = workspace.rounds();
+		Arrays.fill(this.stamp, 0, this.n, 0);
+		this.settledIn = workspace.settledIn();
+		Arrays.fill(this.settledIn, 0, this.n, -1);
+	}
+
+	/**
+	 * Computes the cost of every vertex reached from source
+	 * @param source Key of the vertex at which to start
+	 * @return The predecessor of each vertex, -1 for source and the vertex not reached
+	 */
+	int[] run(int source) {
+		this.values.set(source, Double.doubleToRawLongBits(0.0));
+		add(0, source);
+
+		long current = 0;
+		IntList settled = new IntList();
+		while (this.pending > 0) {
+			while (this.buckets[slot(current)].size == 0) {
+				current++;
+			}
+			settled.size = 0;
+			while (this.buckets[slot(current)].size > 0) {
+				IntList bucket = this.buckets[slot(current)];
+				this.buckets[slot(current)] = new IntList();
+				this.pending -= bucket.size;
+
+				// drops the vertex that moved to a lower bucket and the ones already in the frontier
+				this.round++;
+				int kept = 0;
+				for (int i = 0; i < bucket.size; i++) {
+					int v = bucket.keys[i];
+					if (bucketOf(v) == current && this.stamp[v] != this.round) {
+						if (this.settledIn[v] != current) {
+							this.settledIn[v] = current;
+							settled.add(v);
+						}
+						this.stamp[v] = this.round;
+						bucket.keys[kept++] = v;
+					}
+				}
+				bucket.size = kept;
+				schedule(relax(bucket, true));
+			}
+			schedule(relax(settled, false));
+			current++;
+		}
+		return this.previous;
+	}
+
+	private double getValue(int key) {
+		return Double.longBitsToDouble(this.values.get(key));
+	}
+
+	private long bucketOf(int key) {
+		return (long) (getValue(key) / this.delta);
+	}
+
+	private int slot(long bucket) {
+		return (int) (bucket % this.buckets.length);
+	}
+
+	private void add(long bucket, int key) {
+		this.buckets[slot(bucket)].add(key);
+		this.pending++;
+	}
+
+	/**
+	 * Puts the vertex whose cost went down in the bucket of their new cost
+	 */
+	private void schedule(List<IntList> improved) {
+		this.round++;
+		for (IntList list : improved) {
+			for (int i = 0; i < list.size; i++) {
+				int v = list.keys[i];
+				if (this.stamp[v] != this.round) {
+					this.stamp[v] = this.round;
+					add(bucketOf(v), v);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Relaxes the light or the heavy edges of the passed vertex, in parallel if there are enough of them
+	 * @return Lists with the vertex whose cost went down, possibly repeated
+	 */
+	private List<IntList> relax(final IntList frontier, final boolean light) {
+		List<IntList> improved = new ArrayList<IntList>();
+		if (frontier.size < PARALLEL_THRESHOLD || this.pool.getParallelism() == 1) {
+			improved.add(relax(frontier, 0, frontier.size, light));
+			return improved;
+		}
+
+		int chunks = Math.min(this.pool.getParallelism() * 4, frontier.size / (PARALLEL_THRESHOLD / 4));
+		List<Callable<IntList>> tasks = new ArrayList<Callable<IntList>>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) frontier.size * c / chunks);
+			final int to = (int) ((long) frontier.size * (c + 1) / chunks);
+			tasks.add(new Callable<IntList>() {
+				@Override
+				public IntList call() {
+					return relax(frontier, from, to, light);
+				}
+			});
+		}
+		try {
+			for (Future<IntList> future : this.pool.invokeAll(tasks)) {
+				improved.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while relaxing edges", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+		return improved;
+	}
+
+	private IntList relax(IntList frontier, int from, int to, boolean light) {
+		IntList improved = new IntList();
+		for (int f = from; f < to; f++) {
+			int current = frontier.keys[f];
+			double base = getValue(current);
+			for (int i = 0; i < this.graph.getDegree(current); i++) {
+				double weight = this.graph.getWeight(current, i, this.criteria);
+				if ((weight <= this.delta) != light)
+					continue;
+				int next = this.graph.getTarget(current, i);
+				double value = base + weight;
+				if (value < getValue(next) && lower(next, value, current))
+					improved.add(next);
+			}
+		}
+		return improved;
+	}
+
+	private boolean lower(int key, double value, int from) {
+		synchronized (this.locks[key & (LOCKS - 1)]) {
+			if (value >= getValue(key))
+				return false;
+			this.values.set(key, Double.doubleToRawLongBits(value));
+			this.previous[key] = from;
+			return true;
+		}
+	}
+
+	/**
+	 * Growable list of vertex keys
+	 */
+	private static final class IntList {
+		private static final int[] NO_KEYS = new int[0];
+
+		int[] keys = NO_KEYS;
+		int size;
+
+		void add(int key) {
+			if (this.size == this.keys.length)
+				this.keys = Arrays.copyOf(this.keys, Math.max(16, this.size * 2));
+			this.keys[this.size++] = key;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package Graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Stack;
 
 public class Edge {
@@ -10,6 +11,7 @@ public class Edge {
 	private String from;
 	private boolean directed;
 	private double[] weight;
+	private Graph graph;
 	
 	public Edge(String v1, String v2, double[] weight){
 		this(v1, v2, weight, false);
@@ -29,26 +31,60 @@ public class Edge {
 		
 	}
 
+	/**
+	 * @Constructor: Creates an edge that's a view of an edge stored in graph, setting its weight updates the graph
+	 */
+	Edge(String v1, String v2, double[] weight, boolean directed, Graph graph){
+		this(v1, v2, weight, directed);
+		this.graph = graph;
+	}
+
+	/**
+	 * Gets one of the weights of this edge
+	 * @param choice The criteria (distance, time or one added to the graph)
+	 * @return The weight, -1.123456789 if the edge has no weight for the criteria
+	 */
 	public double getWeight(int choice) {
-		if(choice > 1){
+		if(choice < 0 || choice >= weight.length){
 			return -1.123456789;
 		}
 		return weight[choice];
 	}
+
+	/**
+	 * Gets one of the weights of this edge by the name of its criteria. Only "distance" and "time" are known to
+	 * edges that don't belong to a graph
+	 * @param criteria The name of the criteria
+	 * @return The weight, -1.123456789 if the edge has no weight for the criteria
+	 */
+	public double getWeight(String criteria){
+		if(this.graph != null){
+			return getWeight(this.graph.getCriteria(criteria));
+		}
+		return getWeight(Arrays.asList(AbstractGraph.BUILT_IN_CRITERIA).indexOf(criteria));
+	}
 	
 	public double[] getWeight(){
 		return weight;
 	}
 
 	public void setWeight(double weight, int choice) {
-		if(choice > 1){
+		if(choice < 0 || choice >= this.weight.length){
 			return;
 		}
 		this.weight[choice] = weight;
+		if(this.graph != null){
+			this.graph.setEdgeWeight(this.directed ? this.from : this.v1, this.directed ? this.to : this.v2, weight, choice);
+		}
 	}
 	
 	public void setWeight(double[] weight) {
 		this.weight = weight;
+		if(this.graph != null){
+			for(int choice = 0; choice < weight.length && choice < this.graph.getNumCriteria(); choice++){
+				this.graph.setEdgeWeight(this.directed ? this.from : this.v1, this.directed ? this.to : this.v2, weight[choice], choice);
+			}
+		}
 	}
 
 	public String getV1() {
@@ -0,0 +1,191 @@
+package Graph;
+
+import java.util.HashMap;
+
+/**
+ * Immutable snapshot of a Graph, created by Graph.freeze(). The edges of every vertex are stored one after the
+ * other in shared arrays (compressed sparse rows): the outgoing edges of the vertex with key k are the positions
+ * offsets[k] to offsets[k + 1] of targets and of each weight column. Directed snapshots keep the incoming edges in
+ * the same way, for searches that go backwards; undirected ones share the outgoing arrays. Nothing changes after
+ * construction, so a snapshot can be queried from several threads at once.
+ */
+public class FrozenGraph extends AbstractGraph {
+	private final boolean directed;
+	private final String[] criteria;
+	private final String[] identifiers;
+	private final double[] xs;
+	private final double[] ys;
+	private final HashMap<String, Integer> keys;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[][] weights;
+	private final int[] inOffsets;
+	private final int[] sources;
+	private final double[][] inWeights;
+
+	/**
+	 * @Constructor: Creates a snapshot of graph. The keys are renumbered so that there are no gaps left by removed
+	 * vertex, keeping the order in which the vertex were added
+	 * @param graph The graph to copy
+	 */
+	FrozenGraph(Graph graph) {
+		this.directed = graph.isDirected();
+		this.criteria = new String[graph.getNumCriteria()];
+		for (int c = 0; c < this.criteria.length; c++) {
+			this.criteria[c] = graph.getCriteriaName(c);
+		}
+
+		int[] renumbered = new int[graph.getNumKeys()];
+		int numVertex = 0;
+		int numEdges = 0;
+		for (int key = 0; key < graph.getNumKeys(); key++) {
+			Vertex v = graph.vertexAt(key);
+			if (v == null) {
+				renumbered[key] = -1;
+				continue;
+			}
+			renumbered[key] = numVertex++;
+			numEdges += v.degree;
+		}
+
+		this.identifiers = new String[numVertex];
+		this.xs = new double[numVertex];
+		this.ys = new double[numVertex];
+		this.keys = new HashMap<String, Integer>(numVertex * 2);
+		this.offsets = new int[numVertex + 1];
+		this.targets = new int[numEdges];
+		this.weights = new double[this.criteria.length][numEdges];
+
+		int edge = 0;
+		for (int key = 0; key < graph.getNumKeys(); key++) {
+			Vertex v = graph.vertexAt(key);
+			if (v == null)
+				continue;
+			int k = renumbered[key];
+			this.identifiers[k] = v.getIdentifier();
+			this.xs[k] = v.getX();
+			this.ys[k] = v.getY();
+			this.keys.put(v.getIdentifier(), k);
+			this.offsets[k] = edge;
+			for (int i = 0; i < v.degree; i++, edge++) {
+				this.targets[edge] = renumbered[v.targets[i]];
+				for (int c = 0; c < this.criteria.length; c++) {
+					this.weights[c][edge] = v.weights[c][i];
+				}
+			}
+		}
+		this.offsets[numVertex] = edge;
+
+		if (!this.directed) {
+			this.inOffsets = this.offsets;
+			this.sources = this.targets;
+			this.inWeights = this.weights;
+			return;
+		}
+
+		this.inOffsets = new int[numVertex + 1];
+		this.sources = new int[numEdges];
+		this.inWeights = new double[this.criteria.length][numEdges];
+		edge = 0;
+		for (int key = 0; key < graph.getNumKeys(); key++) {
+			Vertex v = graph.vertexAt(key);
+			if (v == null)
+				continue;
+			this.inOffsets[renumbered[key]] = edge;
+			for (int i = 0; i < v.inDegree; i++, edge++) {
+				this.sources[edge] = renumbered[v.sources[i]];
+				for (int c = 0; c < this.criteria.length; c++) {
+					this.inWeights[c][edge] = v.inWeights[c][i];
+				}
+			}
+		}
+		this.inOffsets[numVertex] = edge;
+	}
+
+	public boolean isDirected() {
+		return this.directed;
+	}
+
+	public int getNumVertex() {
+		return this.identifiers.length;
+	}
+
+	@Override
+	public int getNumCriteria() {
+		return this.criteria.length;
+	}
+
+	@Override
+	public String getCriteriaName(int criteria) {
+		return (criteria >= 0 && criteria < this.criteria.length) ? this.criteria[criteria] : null;
+	}
+
+	/**
+	 * Gets the number of edges stored in this snapshot. Each edge of an undirected graph is stored once for each
+	 * of its vertex
+	 * @return The number of stored edges
+	 */
+	public int getNumEdges() {
+		return this.targets.length;
+	}
+
+	int getNumKeys() {
+		return this.identifiers.length;
+	}
+
+	int getKey(String id) {
+		Integer key = this.keys.get(id);
+		return (key == null) ? -1 : key;
+	}
+
+	String getIdentifier(int key) {
+		return this.identifiers[key];
+	}
+
+	int getDegree(int key) {
+		return this.offsets[key + 1] - this.offsets[key];
+	}
+
+	int getTarget(int key, int i) {
+		return this.targets[this.offsets[key] + i];
+	}
+
+	double getWeight(int key, int i, int criteria) {
+		return this.weights[criteria][this.offsets[key] + i];
+	}
+
+	public double getX(int key) {
+		return this.xs[key];
+	}
+
+	public double getY(int key) {
+		return this.ys[key];
+	}
+
+	int getInDegree(int key) {
+		return this.inOffsets[key + 1] - this.inOffsets[key];
+	}
+
+	int getSource(int key, int i) {
+		return this.sources[this.inOffsets[key] + i];
+	}
+
+	double getInWeight(int key, int i, int criteria) {
+		return this.inWeights[criteria][this.inOffsets[key] + i];
+	}
+
+	/**
+	 * Returns a string containing the edges and all of their connections
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int key = 0; key < this.identifiers.length; key++) {
+			builder.append(this.identifiers[key] + ": ");
+			for (int e = this.offsets[key]; e < this.offsets[key + 1]; e++) {
+				builder.append(this.identifiers[this.targets[e]] + ", ");
+			}
+			builder.append("\b\b\n");
+		}
+		return builder.toString();
+	}
+}
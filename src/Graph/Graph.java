@@ -1,25 +1,18 @@
 package Graph;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.ListIterator;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.Stack;
 
-public class Graph {
+public class Graph extends AbstractGraph {
 	private static final boolean DIRECTED = true;
 	private static final boolean UNDIRECTED = false;
-	public static final int DISTANCE = 0;
-	public static final int TIME = 1;
-	private ArrayList<Vertex> vertex;
+	private Vertex[] vertex;
+	private int keys;
+	private HashMap<String, Vertex> index;
 	private boolean directed;
-
-	private Stack<String> path = new Stack<String>();
-	private Set<String> onPath = new HashSet<String>();
-	private ArrayList<Stack<String>> paths = new ArrayList<Stack<String>>();
+	private ArrayList<String> criteria;
+	private ArrayList<ShortestPathTree> trees = new ArrayList<ShortestPathTree>();
 
 	/**
 	 * @Constructor: Creates an empty undirected graph
@@ -33,8 +26,23 @@ public class Graph {
 	 * @param directed Determines whether the graph is directed or not. true = directed, false = undirected
 	 */
 	public Graph(boolean directed) {
-		this.vertex = new ArrayList<Vertex>();
+		this.vertex = new Vertex[16];
+		this.index = new HashMap<String, Vertex>();
+		this.directed = directed;
+		this.criteria = new ArrayList<String>(Arrays.asList(BUILT_IN_CRITERIA));
+	}
+
+	/**
+	 * @Constructor: Creates an empty graph with room for the passed number of vertex, used by GraphBuilder
+	 * @param directed Determines whether the graph is directed or not. true = directed, false = undirected
+	 * @param expectedVertex The number of vertex that will be added
+	 * @param criteria The names of the weight criteria
+	 */
+	Graph(boolean directed, int expectedVertex, ArrayList<String> criteria) {
+		this.vertex = new Vertex[Math.max(16, expectedVertex)];
+		this.index = new HashMap<String, Vertex>(Math.max(16, (int) (expectedVertex / 0.75f) + 1));
 		this.directed = directed;
+		this.criteria = new ArrayList<String>(criteria);
 	}
 
 	/**
@@ -42,14 +50,17 @@ public class Graph {
 	 * @param toClone The graph to copy
 	 */
 	public Graph(Graph toClone) {
-		this.vertex = new ArrayList<Vertex>();
-		for (Vertex v : toClone.vertex) {
-			Vertex toAdd = new Vertex(v.getIdentifier());
-
-			for (Edge e : v.getEdges()) {
-				toAdd.getEdges().add(e);
-			}
-			this.vertex.add(toAdd);
+		this.criteria = new ArrayList<String>(toClone.criteria);
+		this.vertex = new Vertex[Math.max(16, toClone.keys)];
+		this.keys = toClone.keys;
+		this.index = new HashMap<String, Vertex>(toClone.index.size() * 2);
+		for (int key = 0; key < toClone.keys; key++) {
+			Vertex v = toClone.vertex[key];
+			if (v == null)
+				continue;
+			Vertex toAdd = new Vertex(v, this);
+			this.vertex[key] = toAdd;
+			this.index.put(toAdd.getIdentifier(), toAdd);
 		}
 
 		this.directed = toClone.directed;
@@ -63,17 +74,55 @@ public class Graph {
 	public boolean addVertex(String id) {
 		if (id == null)
 			return false;
-		if (!vertex.contains(new Vertex(id))) {
-			return vertex.add(new Vertex(id));
+		if (!index.containsKey(id)) {
+			if (keys == vertex.length) {
+				vertex = Arrays.copyOf(vertex, keys * 2);
+			}
+			Vertex v = new Vertex(id, keys, this);
+			vertex[keys++] = v;
+			index.put(id, v);
+			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Adds a weight criteria, such as a toll or the energy used, to every edge. The weights of each criteria are
+	 * kept in arrays of their own, so a search reads only the ones of the criteria it uses. The existing edges get
+	 * a weight of 0 for the new criteria; the edges added afterwards take it from the position of the returned
+	 * criteria in their weights
+	 * @param name The name of the criteria
+	 * @return The criteria to pass to the searches, the existing one if the graph already had a criteria with
+	 *         this name
+	 */
+	public int addCriteria(String name) {
+		int existing = getCriteria(name);
+		if (existing != -1) {
+			return existing;
+		}
+		this.criteria.add(name);
+		for (int key = 0; key < this.keys; key++) {
+			if (this.vertex[key] != null)
+				this.vertex[key].addCriteria();
+		}
+		return this.criteria.size() - 1;
+	}
+
+	@Override
+	public int getNumCriteria() {
+		return this.criteria.size();
+	}
+
+	@Override
+	public String getCriteriaName(int criteria) {
+		return (criteria >= 0 && criteria < this.criteria.size()) ? this.criteria.get(criteria) : null;
+	}
+
 	/**
 	 * Adds an edge to the mentioned vertex
 	 * @param v1 first vertex
 	 * @param v2 second vertex
-	 * @param w weights for the edge
+	 * @param w weights for the edge, in the order of the criteria (the missing ones are 0)
 	 */
 	public void addEdge(String v1, String v2, double[] w) {
 		addEdge(v1, v2, w, false);
@@ -83,19 +132,19 @@ public class Graph {
 	 * Adds an edge to the mentioned vertex
 	 * @param v1 first vertex
 	 * @param v2 second vertex
-	 * @param w weights for the edge
+	 * @param w weights for the edge, in the order of the criteria (the missing ones are 0)
 	 * @param force if true and one of the passed IDs doesn't correspond to a vertex, the vertex will be created
 	 * @return true if the edge is created, false if not
 	 */
 	public boolean addEdge(String v1, String v2, double[] w, boolean force) {
-		if (!this.vertex.contains(new Vertex(v1))) {
+		if (!this.index.containsKey(v1)) {
 			if (force) {
 				this.addVertex(v1);
 			} else {
 				return false;
 			}
 		}
-		if (!this.vertex.contains(new Vertex(v2))) {
+		if (!this.index.containsKey(v2)) {
 			if (force) {
 				this.addVertex(v2);
 			} else {
@@ -103,13 +152,19 @@ public class Graph {
 			}
 		}
 
-		if (this.vertex.get(this.vertex.indexOf(new Vertex(v1))).getEdges()
-				.contains(new Edge(v1, v2, w, this.directed))) {
+		Vertex from = this.index.get(v1);
+		Vertex to = this.index.get(v2);
+		if (from.findTarget(to.getKey()) != -1) {
 			return false;
 		}
 
-		this.vertex.get(this.vertex.indexOf(new Vertex(v1))).getEdges().add(new Edge(v1, v2, w, this.directed));
-		this.vertex.get(this.vertex.indexOf(new Vertex(v2))).getEdges().add(new Edge(v1, v2, w, this.directed));
+		from.addTarget(to.getKey(), w);
+		if (this.directed) {
+			to.addSource(from.getKey(), w);
+		} else if (from != to) {
+			to.addTarget(from.getKey(), w);
+		}
+		edgeChanged(from.getKey(), to.getKey());
 		return true;
 
 	}
@@ -125,12 +180,24 @@ public class Graph {
 			return false;
 		}
 
-		else if (!this.vertex.contains(new Vertex(v1)) || !this.vertex.contains(new Vertex(v2))) {
+		else if (!this.index.containsKey(v1) || !this.index.containsKey(v2)) {
 			return false;
 		}
-		double[] temp = { 0.0, 0.0 };
-		this.vertex.get(this.vertex.indexOf(new Vertex(v1))).getEdges().remove(new Edge(v1, v2, temp, this.directed));
-		this.vertex.get(this.vertex.indexOf(new Vertex(v2))).getEdges().remove(new Edge(v1, v2, temp, this.directed));
+		Vertex from = this.index.get(v1);
+		Vertex to = this.index.get(v2);
+		int i = from.findTarget(to.getKey());
+		if (i != -1) {
+			from.removeTargetAt(i);
+		}
+		i = this.directed ? to.findSource(from.getKey()) : to.findTarget(from.getKey());
+		if (i != -1) {
+			if (this.directed) {
+				to.removeSourceAt(i);
+			} else {
+				to.removeTargetAt(i);
+			}
+		}
+		edgeChanged(from.getKey(), to.getKey());
 		return true;
 	}
 
@@ -156,142 +223,75 @@ public class Graph {
 	 * @return
 	 */
 	public boolean removeVertex(String id) {
-		if (id == null) {
+		if (id == null || !this.index.containsKey(id)) {
 			return false;
 		}
 
-		ListIterator<Edge> it = this.vertex.get(this.vertex.indexOf(new Vertex(id))).getEdges().listIterator(0);
-		while (it.hasNext()) {
-			Edge e = it.next();
-			it.remove();
+		Vertex v = this.index.remove(id);
+		for (int i = 0; i < v.degree; i++) {
+			Vertex other = this.vertex[v.targets[i]];
+			if (other == v)
+				continue;
 			if (this.directed) {
-				if (e.getFrom().equals(id)) {
-					this.vertex.get(this.vertex.indexOf(new Vertex(e.getTo()))).getEdges().remove(e);
-				} else {
-					this.vertex.get(this.vertex.indexOf(new Vertex(e.getFrom()))).getEdges().remove(e);
-				}
+				other.removeSourceAt(other.findSource(v.getKey()));
 			} else {
-				if (e.getV1().equals(id)) {
-					this.vertex.get(this.vertex.indexOf(new Vertex(e.getV2()))).getEdges().remove(e);
-				} else {
-					this.vertex.get(this.vertex.indexOf(new Vertex(e.getV1()))).getEdges().remove(e);
-				}
+				other.removeTargetAt(other.findTarget(v.getKey()));
 			}
 		}
+		for (int i = 0; i < v.inDegree; i++) {
+			Vertex other = this.vertex[v.sources[i]];
+			if (other != v) {
+				other.removeTargetAt(other.findTarget(v.getKey()));
+			}
+		}
+		this.vertex[v.getKey()] = null;
+		v.graph = null;
+		for (int t = 0; t < this.trees.size(); t++) {
+			this.trees.get(t).vertexRemoved(v.getKey());
+		}
+		return true;
 
-		return this.vertex.remove(new Vertex(id));
-
-	}
-
-	/**
-	 * Goes through the graph depth-first until it reaches the provided range
-	 * @param id
-	 * @param range The weight at which to stop 
-	 * @param criteria The weight to use (distance or time)
-	 * @return An ArrayList with all the visited vertex
-	 */
-	public ArrayList<Vertex> rangedDfs(String id, double range, int criteria) {
-		Graph g = new Graph(this.directed);
-		g.addVertex(id);
-		return (this.directed) ? rangedDfsDirected(id, range, 0.0, g, criteria).vertex
-				: rangedDfsUndirected(id, range, 0.0, g, null, criteria).vertex;
 	}
 
 	/**
-	 * Goes through a directed graph depth-first until it reaches the provided range
+	 * Adds to resultGraph the vertex of a directed graph that can be reached from the mentioned vertex for less than
+	 * range
 	 * @param id The vertex from which to start
 	 * @param range The weight at which to stop 
-	 * @param accumulator The accumulated weight of all nodes visited from root to the last node visited
-	 * @param resultGraph The graph with all of the vertex visited so far
+	 * @param accumulator The weight already spent before reaching id, taken from range
+	 * @param resultGraph The graph to which the vertex reached are added
 	 * @param criteria The weight to use (distance or time)
 	 * @return The graph with all of the vertex visited
 	 */
 	public Graph rangedDfsDirected(String id, double range, double accumulator, Graph resultGraph, int criteria) {
-		if (accumulator >= range)
-			return resultGraph;
-
-		for (Edge e : this.vertex.get(this.vertex.indexOf(new Vertex(id))).getEdges()) {
-			if (e.getTo().equals(id))
-				continue;
-			else if (e.getFrom().equals(id) && e.getWeight(criteria) + accumulator < range) {
-				resultGraph.addVertex(e.getTo());
-				resultGraph = rangedDfsDirected(e.getTo(), range, accumulator + e.getWeight(criteria), resultGraph,
-						criteria);
-			}
-		}
-
+		addReached(id, range - accumulator, resultGraph, criteria);
 		return resultGraph;
 	}
 
 	/**
-	 * Goes through a directed graph depth-first until it reaches the provided range
+	 * Adds to resultGraph the vertex of an undirected graph that can be reached from the mentioned vertex for less
+	 * than range
 	 * @param id The vertex from which to start
 	 * @param range The weight at which to stop 
-	 * @param accumulator The accumulated weight of all nodes visited from root to the last node visited
-	 * @param resultGraph The graph with all of the vertex visited so far
-	 * @param previous The last visited node
+	 * @param accumulator The weight already spent before reaching id, taken from range
+	 * @param resultGraph The graph to which the vertex reached are added
+	 * @param previous The last visited node. Going back to it can't give a cheaper path, so it's ignored
 	 * @param criteria The weight to use (distance or time)
 	 * @return The graph with all of the vertex visited
 	 */
 	public Graph rangedDfsUndirected(String id, double range, double accumulator, Graph resultGraph, Vertex previous,
 			int criteria) {
-		if (accumulator >= range)
-			return resultGraph;
-
-		for (Edge e : this.vertex.get(this.vertex.indexOf(new Vertex(id))).getEdges()) {
-			if ((e.getV1().equals(id) && (previous != null) ? (previous.equals(new Vertex(e.getV2()))) : false)
-					|| (e.getV2().equals(id) && (previous != null) ? (previous.equals(new Vertex(e.getV1())))
-							: false)) {
-				continue;
-			} else if (e.getV1().equals(id) && e.getWeight(criteria) + accumulator < range) {
-				resultGraph.addVertex(e.getV2());
-				resultGraph = rangedDfsUndirected(e.getV2(), range, e.getWeight(criteria) + accumulator, resultGraph,
-						this.vertex.get(this.vertex.indexOf(new Vertex(id))), criteria);
-			} else if (e.getV2().equals(id) && e.getWeight(criteria) + accumulator < range) {
-				resultGraph.addVertex(e.getV1());
-				resultGraph = rangedDfsUndirected(e.getV1(), range, e.getWeight(criteria) + accumulator, resultGraph,
-						this.vertex.get(this.vertex.indexOf(new Vertex(id))), criteria);
-			}
-		}
+		addReached(id, range - accumulator, resultGraph, criteria);
 		return resultGraph;
 	}
 
-	/**
-	 * Uses rangedDfs to return all of the vertex that weren't visited
-	 * @param id The vertex from which to start
-	 * @param range The weight at which to stop
-	 * @param criteria The weight to use (distance or time)
-	 * @return An ArrayList with all the visited vertex
-	 */
-	public ArrayList<Vertex> invertedRangedDfs(String id, double range, int criteria) {
-		Graph cloneGraph = new Graph(this);
-		ArrayList<Vertex> rdfsVertex = rangedDfs(id, range, criteria);
-		for (Vertex v : rdfsVertex) {
-			cloneGraph.removeVertex(v.getIdentifier());
+	private void addReached(String id, double range, Graph resultGraph, int criteria) {
+		Isochrone isochrone = isochrone(id, range, criteria);
+		if (isochrone == null)
+			return;
+		for (int i = 0; i < isochrone.size(); i++) {
+			resultGraph.addVertex(isochrone.getIdentifier(i));
 		}
-		return cloneGraph.vertex;
-	}
-	
-	/**
-	 * Gets the vertex that exist in both of the passed ArrayLists
-	 * @param v1 first ArrayList 
-	 * @param v2 second ArrayList
-	 * @return An ArrayList with all of the common vertex
-	 */
-	public ArrayList<Vertex> getCommonVertex(ArrayList<Vertex> v1, ArrayList<Vertex> v2){
-		ArrayList<Vertex> vTemp = new ArrayList<Vertex>();
-		for(Vertex v: v1){
-			vTemp.add(v);
-		}
-		
-		ListIterator<Vertex> it = vTemp.listIterator();
-		while(it.hasNext()){
-			Vertex v = it.next();
-			if(!v2.contains(v)){
-				it.remove();
-			}
-		}
-		return vTemp ;
 	}
 
 	/**
@@ -299,18 +299,10 @@ public class Graph {
 	 */
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
-		for (Vertex v : vertex) {
+		for (Vertex v : getVertex()) {
 			builder.append(v.getIdentifier() + ": ");
-			for (Edge e : v.getEdges()) {
-				if (this.directed && e.getFrom().equals(v.getIdentifier())) {
-					builder.append(e.getTo() + ", ");
-				} else if (!this.directed) {
-					if (e.getV1().equals(v.getIdentifier())) {
-						builder.append(e.getV2() + ", ");
-					} else {
-						builder.append(e.getV1() + ", ");
-					}
-				}
+			for (int i = 0; i < v.degree; i++) {
+				builder.append(this.vertex[v.targets[i]].getIdentifier() + ", ");
 			}
 			builder.append("\b\b\n");
 		}
@@ -322,452 +314,195 @@ public class Graph {
 	 * @return The number of vertex in this graph
 	 */
 	public int getNumVertex() {
-		return this.vertex.size();
+		return this.index.size();
 	}
 
 	/**
-	 * Checks if a vertex with the passed ID exists in this graph
-	 * @param id The ID to check
-	 * @return true if vertex exists, false otherwise
+	 * Checks if this graph is directed
+	 * @return true if directed, false otherwise
 	 */
-	public boolean checkExistsVertex(String id) {
-		return this.vertex.contains(new Vertex(id));
+	public boolean isDirected() {
+		return this.directed;
 	}
 
-	
-	  public Graph passing(String origin, String destination, String passing,
-	  int criteria) { Graph result = new Graph(this.directed);
-	  
-	  Graph firstLeg = yen(origin, passing, 1, criteria).get(0); Graph
-	  secondLeg = yen(passing, destination, 1, criteria).get(0);
-	  
-	  for (Vertex v : firstLeg.getVertex()) { for (Edge e : v.getEdges()) {
-	  if (this.directed) { result.addEdge(e.getFrom(), e.getTo(),
-	  e.getWeight(), true); } else { result.addEdge(e.getV1(), e.getV2(),
-	  e.getWeight(), true); } } }
-	  
-	  for (Vertex v : secondLeg.getVertex()) { for (Edge e : v.getEdges()) {
-	  if (this.directed) { result.addEdge(e.getFrom(), e.getTo(),
-	  e.getWeight(), true); } else { result.addEdge(e.getV1(), e.getV2(),
-	  e.getWeight(), true); } } }
-	  
-	  return result; }
-	 
-
 	/**
-	 * Gets the shortest path from the mentioned vertex to all other vertex
-	 * @param id The vertex from which to start
-	 * @param criteria The weight to use (distance or time)
-	 * @return A graph with only the shortest paths from the mentioned node to all other nodes
+	 * Gets the number of keys handed out so far. Keys of removed vertex aren't reused, so some of the keys
+	 * below this value may not correspond to a vertex
+	 * @return The upper bound (exclusive) of the vertex keys
 	 */
-	public Graph dijkstra(String id, int criteria) {
-		if (!this.vertex.contains(new Vertex(id))) {
-			return null;
-		}
-
-		Graph dijkstraGraph = new Graph(this.directed);
-		HashMap<String, Double> values = new HashMap<String, Double>();
-		HashMap<String, String> previous = new HashMap<String, String>();
-		VComparator comp = new VComparator(values);
-		PriorityQueue<String> pq = new PriorityQueue<String>(this.getNumVertex(), comp);
-
-		for (Vertex v : this.vertex) {
-			values.put(v.getIdentifier(), Double.MAX_VALUE);
-			previous.put(v.getIdentifier(), null);
-		}
-
-		values.remove(id);
-		values.put(id, 0.0);
-
-		comp.update(values);
-
-		pq.add(id);
-		while (!pq.isEmpty()) {
-			for (Edge e : this.vertex.get(this.vertex.indexOf(new Vertex(pq.peek()))).getEdges()) {
-				if (this.directed && e.getFrom().equals(pq.peek())) {
-					if (values.get(e.getTo()) >= e.getWeight(criteria) + values.get(e.getFrom())) {
-
-						values.remove(e.getTo());
-						values.put(e.getTo(), e.getWeight(criteria) + values.get(e.getFrom()));
-						previous.remove(e.getTo());
-						previous.put(e.getTo(), e.getFrom());
-						if (pq.contains(e.getTo())) {
-							pq.remove(e.getTo());
-						}
-						comp.update(values);
-						pq.add(e.getTo());
-					}
-				} else if (!this.directed) {
-					if (e.getV1().equals(pq.peek()) && (previous.get(pq.peek()) == null) ? true
-							: !previous.get(pq.peek()).equals(e.getV2())) {
-						if (values.get(e.getV2()) >= e.getWeight(criteria) + values.get(e.getV1())) {
-							values.remove(e.getV2());
-							values.put(e.getV2(), e.getWeight(criteria) + values.get(e.getV1()));
-							previous.remove(e.getV2());
-							previous.put(e.getV2(), e.getV1());
-							if (pq.contains(e.getV2())) {
-								pq.remove(e.getV2());
-							}
-							comp.update(values);
-							pq.add(e.getV2());
-						}
-					} else if (e.getV2().equals(pq.peek()) && !previous.get(pq.peek()).equals(e.getV1())) {
-						if (values.get(e.getV1()) >= e.getWeight(criteria) + values.get(e.getV2())) {
-							values.remove(e.getV1());
-							values.put(e.getV1(), e.getWeight(criteria) + values.get(e.getV2()));
-							previous.remove(e.getV1());
-							previous.put(e.getV1(), e.getV2());
-							if (pq.contains(e.getV1())) {
-								pq.remove(e.getV1());
-							}
-							comp.update(values);
-							pq.add(e.getV1());
-						}
-					}
-				}
-			}
-			pq.remove();
-		}
-
-		for (Vertex v : this.vertex) {
-			dijkstraGraph.addVertex(v.getIdentifier());
-			if (previous.get(v.getIdentifier()) != null) {
-				double[] temp = { 0.0, 0.0 };
-				dijkstraGraph.addEdge(previous.get(v.getIdentifier()), v.getIdentifier(), temp, true);
-			}
-		}
-
-		return dijkstraGraph;
-
+	int getNumKeys() {
+		return this.keys;
 	}
 
 	/**
-	 * Gets the shortest path between the mentioned vertex
-	 * @param start Vertex at which to start
-	 * @param end Destination vertex
-	 * @param criteria The weight to use (distance or time)
-	 * @return A graph containing the shortest path between the two vertex
+	 * Gets the vertex with the passed key
+	 * @param key The dense index of the vertex
+	 * @return The vertex, or null if it was removed
 	 */
-	public Graph dijkstraYen(String start, String end, int criteria) {
-
-		Graph graph = new Graph();
-		Graph copy = new Graph(this);
-
-		copy.allPaths(start, end);
-
-		HashMap<Stack<String>, Double> totalPathWeight = new HashMap<Stack<String>, Double>();
-		HashMap<ArrayList<String>, Double> totalPathWeightConverted = new HashMap<ArrayList<String>, Double>();
-
-		double totalWeight = 0;
-
-		for (int j = 0; j < copy.paths.size(); j++) {
-
-			Stack<String> path = copy.paths.get(j);
-			Stack<String> copiedStack = (Stack<String>) path.clone();
-			int totalSize = path.size() - 1;
-			String startVertex = path.pop();
-			String endVertex = path.pop();
+	Vertex vertexAt(int key) {
+		return this.vertex[key];
+	}
 
-			for (int k = 0; k < totalSize; k++) {
-				double edgeWeight = getEdgeWeight(startVertex, endVertex, criteria);
-				totalWeight += edgeWeight;
-				startVertex = endVertex;
-				if (k == totalSize - 1)
-					break;
-				endVertex = path.pop();
-			}
+	int getKey(String id) {
+		Vertex v = this.index.get(id);
+		return (v == null) ? -1 : v.getKey();
+	}
 
-			totalPathWeight.put(copiedStack, totalWeight);
-			totalWeight = 0;
+	String getIdentifier(int key) {
+		return (this.vertex[key] == null) ? null : this.vertex[key].getIdentifier();
+	}
 
-		}
+	@Override
+	boolean exists(int key) {
+		return this.vertex[key] != null;
+	}
 
-		for (HashMap.Entry<Stack<String>, Double> entry : totalPathWeight.entrySet()) {
-			ArrayList<String> path = new ArrayList<String>(entry.getKey());
-			totalPathWeightConverted.put(path, entry.getValue());
-		}
+	int getDegree(int key) {
+		return this.vertex[key].degree;
+	}
 
-		ArrayList<String> bestPath = new ArrayList<String>();
-		Double previousBetter = Double.MAX_VALUE;
+	int getTarget(int key, int i) {
+		return this.vertex[key].targets[i];
+	}
 
-		for (HashMap.Entry<ArrayList<String>, Double> entry : totalPathWeightConverted.entrySet()) {
-			if (entry.getValue() < previousBetter) {
-				previousBetter = entry.getValue();
-				bestPath = entry.getKey();
-			}
-		}
+	double getWeight(int key, int i, int criteria) {
+		return this.vertex[key].weights[criteria][i];
+	}
 
-		for (int l = 0; l < (bestPath.size() - 1); l++) {
-			double[] total = new double[2];
-			double weight1;
-			double weight2;
-			if (criteria == DISTANCE) {
-				weight1 = getEdgeWeight(bestPath.get(l), bestPath.get(l + 1), criteria);
-				weight2 = getEdgeWeight(bestPath.get(l), bestPath.get(l + 1), TIME);
-			} else {
-				weight2 = getEdgeWeight(bestPath.get(l), bestPath.get(l + 1), criteria);
-				weight1 = getEdgeWeight(bestPath.get(l), bestPath.get(l + 1), DISTANCE);
-			}
-			total[0] = weight1;
-			total[1] = weight2;
-			graph.addEdge(bestPath.get(l), bestPath.get(l + 1), total, true);
-		}
+	@Override
+	int findEdge(int start, int end) {
+		return this.vertex[start].findTarget(end);
+	}
 
-		return graph;
+	int getInDegree(int key) {
+		return this.directed ? this.vertex[key].inDegree : this.vertex[key].degree;
+	}
 
+	int getSource(int key, int i) {
+		return this.directed ? this.vertex[key].sources[i] : this.vertex[key].targets[i];
 	}
 
-	/**
-	 * Return the weight of the edge that exists between the mentioned nodes
-	 * @param startVertex The vertex at which to start
-	 * @param endVertex The destination vertex
-	 * @param criteria The weight to obtain (distance or time)
-	 * @return The weight of the aforementioned edge
-	 */
-	private double getEdgeWeight(String startVertex, String endVertex, int criteria) {
-
-		Vertex start = getGraphVertex(this, startVertex);
-		double weight = 0;
-
-		for (int i = 0; i < start.getEdges().size(); i++) {
-			if (start.getEdges().get(i).getV1().equals(startVertex)
-					&& start.getEdges().get(i).getV2().equals(endVertex))
-				weight = start.getEdges().get(i).getWeight(criteria);
-			else if (start.getEdges().get(i).getV2().equals(startVertex)
-					&& start.getEdges().get(i).getV1().equals(endVertex))
-				weight = start.getEdges().get(i).getWeight(criteria);
-		}
+	double getInWeight(int key, int i, int criteria) {
+		return this.directed ? this.vertex[key].inWeights[criteria][i] : this.vertex[key].weights[criteria][i];
+	}
 
-		return weight;
+	public double getX(int key) {
+		return this.vertex[key].getX();
+	}
 
+	public double getY(int key) {
+		return this.vertex[key].getY();
 	}
 
 	/**
-	 * Gets all paths between the mentioned vertex
-	 * @param start Fisrt vertex
-	 * @param end Second vertex
+	 * Sets the coordinates of a vertex, used by the heuristics of A*
+	 * @param id The ID of the vertex
+	 * @param x The first coordinate (the longitude, in degrees, for geographic graphs)
+	 * @param y The second coordinate (the latitude, in degrees, for geographic graphs)
+	 * @return true if the vertex exists, false otherwise
 	 */
-	private void allPaths(String start, String end) {
-
-		path.push(start);
-		onPath.add(start);
-
-		if (start.equals(end)) {
-			Stack<String> copiedStack = (Stack<String>) path.clone();
-			paths.add(copiedStack);
-		}
-
-		else {
-			for (String w : this.adjacentTo(start)) {
-				if (!onPath.contains(w))
-					allPaths(w, end);
-			}
+	public boolean setCoordinates(String id, double x, double y) {
+		Vertex v = this.index.get(id);
+		if (v == null) {
+			return false;
 		}
+		v.setCoordinates(x, y);
+		return true;
+	}
 
-		path.pop();
-		onPath.remove(start);
+	Vertex toVertex(int key) {
+		return this.vertex[key];
 	}
 
 	/**
-	 * Gets all of the vertex that are adjacent to the mentioned vertex
-	 * @param v The vertex to start from
-	 * @return An ArrayList with all of the adjacent vertex
+	 * Creates an immutable snapshot of this graph, stored in compressed sparse rows, on which the same queries can
+	 * be run. Later changes to this graph aren't seen by the snapshot
+	 * @return The snapshot
 	 */
-	private ArrayList<String> adjacentTo(String v) {
-
-		ArrayList<String> adjacents = new ArrayList<String>();
-		Vertex vertex = getGraphVertex(this, v);
-
-		for (int i = 0; i < vertex.getEdges().size(); i++) {
-			if (!vertex.getEdges().get(i).getV1().equals(v))
-				adjacents.add(vertex.getEdges().get(i).getV1());
-			else
-				adjacents.add(vertex.getEdges().get(i).getV2());
-		}
-
-		return adjacents;
+	public FrozenGraph freeze() {
+		return new FrozenGraph(this);
 	}
 
 	/**
-	 * Get the vertex with the passed ID from the mentioned graph
-	 * @param graph graph in which to search
-	 * @param id ID for which to search
-	 * @return The vertex
+	 * Sets the weight of the edge that exists between the mentioned nodes, in both directions of the edge
+	 * @param startVertex The vertex at which the edge starts
+	 * @param endVertex The vertex at which the edge ends
+	 * @param weight The new weight
+	 * @param criteria The weight to set (distance, time or one added to the graph)
+	 * @return true if the edge exists, false otherwise
 	 */
-	public Vertex getGraphVertex(Graph graph, String id) {
-
-		for (int i = 0; i < graph.getNumVertex(); i++) {
-
-			if (graph.vertex.get(i).getIdentifier().equals(id))
-				return graph.vertex.get(i);
-
+	boolean setEdgeWeight(String startVertex, String endVertex, double weight, int criteria) {
+		Vertex start = this.index.get(startVertex);
+		Vertex end = this.index.get(endVertex);
+		if (start == null || end == null || criteria < 0 || criteria >= this.criteria.size()) {
+			return false;
 		}
-
-		return null;
+		int i = start.findTarget(end.getKey());
+		if (i == -1) {
+			return false;
+		}
+		start.weights[criteria][i] = weight;
+		if (this.directed) {
+			end.inWeights[criteria][end.findSource(start.getKey())] = weight;
+		} else {
+			end.weights[criteria][end.findTarget(start.getKey())] = weight;
+		}
+		for (int t = 0; t < this.trees.size(); t++) {
+			this.trees.get(t).weightChanged(start.getKey(), end.getKey(), criteria);
+		}
+		return true;
 	}
 
 	/**
-	 * Returns the requested number of paths between the two mentioned vertex
-	 * @param startId First vertex
-	 * @param endId Second vertex
-	 * @param nrPaths Number of paths to get
+	 * Gets the shortest paths from the mentioned vertex to all other vertex, kept up to date as edges are added,
+	 * removed or have their weights set, directly or through Edge.setWeight. Each change only repairs the paths it
+	 * affects, which is much cheaper than running dijkstra again. The tree is updated until it's detached
+	 * @param id The vertex from which to start
 	 * @param criteria The weight to use (distance or time)
-	 * @return An ArrayList with Graphs containing the requested paths
+	 * @return The tree, null if the vertex doesn't exist
 	 */
-	public ArrayList<Graph> yen(String startId, String endId, int nrPaths, int criteria) {
-
-		if (!this.vertex.contains(new Vertex(startId)) || !this.vertex.contains(new Vertex(endId))) {
+	public ShortestPathTree shortestPathTree(String id, int criteria) {
+		Vertex v = this.index.get(id);
+		if (v == null) {
 			return null;
 		}
-
-		ArrayList<Graph> yenArray = new ArrayList<Graph>();
-
-		// get the shortest path -> the first one on the array
-		yenArray.add(dijkstraYen(startId, endId, criteria));
-
-		ArrayList<Vertex> rootPath = new ArrayList<Vertex>();
-		Vertex spurVertex;
-		String v1;
-		String v2;
-
-		for (int k = 1; k < nrPaths; k++) {
-
-			Graph current = yenArray.get(k - 1);
-
-			int max = current.getNumVertex();
-
-			for (int i = 0; i < (max-1); i++) {
-
-				spurVertex = current.vertex.get(i);
-				rootPath = current.rootPath(startId, spurVertex.getIdentifier());
-
-				if (rootPath.size() != 0) {
-					v1 = rootPath.get(rootPath.size() - 1).getIdentifier();
-					v2 = current.vertex.get(i+1).getIdentifier();
-
-					double originalWeight = 0;
-
-					for (int index = 0; index < this.vertex.size(); index++) {
-						for (int j = 0; j < this.vertex.get(index).getEdges().size(); j++) {
-
-							// set the weight to max
-							if (v1.equals(this.vertex.get(index).getEdges().get(j).getV1())) {
-								if (v2.equals(this.vertex.get(index).getEdges().get(j).getV2())) {
-									originalWeight = this.vertex.get(index).getEdges().get(j).getWeight(criteria);
-									this.vertex.get(index).getEdges().get(j).setWeight(Double.MAX_VALUE, criteria);
-								}
-							}
-							if (v2.equals(this.vertex.get(index).getEdges().get(j).getV1())) {
-								if (v1.equals(this.vertex.get(index).getEdges().get(j).getV2())) {
-									originalWeight = this.vertex.get(index).getEdges().get(j).getWeight(criteria);
-									this.vertex.get(index).getEdges().get(j).setWeight(Double.MAX_VALUE, criteria);
-								}
-							}
-						}
-					}
-
-					yenArray.add(dijkstraYen(startId, endId, criteria));
-
-					for (int index = 0; index < this.vertex.size(); index++) {
-						for (int j = 0; j < this.vertex.get(index).getEdges().size(); j++) {
-
-							// set the weight back to its original value
-							if (v1.equals(this.vertex.get(index).getEdges().get(j).getV1()))
-								if (v2.equals(this.vertex.get(index).getEdges().get(j).getV2()))
-									this.vertex.get(index).getEdges().get(j).setWeight(originalWeight, criteria);
-							if (v2.equals(this.vertex.get(index).getEdges().get(j).getV1()))
-								if (v1.equals(this.vertex.get(index).getEdges().get(j).getV2()))
-									this.vertex.get(index).getEdges().get(j).setWeight(originalWeight, criteria);
-
-						}
-					}
-
-				}
-			}
-		}
-
-		return yenArray;
-
+		ShortestPathTree tree = new ShortestPathTree(this, v.getKey(), criteria);
+		this.trees.add(tree);
+		return tree;
 	}
 
 	/**
-	 * Gets the number of vertex between the two mentioned vertex
-	 * @param source First vertex
-	 * @param spur Second vertex
-	 * @return The number of vertex between the two mentioned vertex
+	 * Stops updating a tree returned by shortestPathTree
+	 * @param tree The tree
 	 */
-	private int getDistance(String source, String spur) {
-		Vertex sourceNode = getGraphVertex(this, source);
-		Vertex spurNode = getGraphVertex(this, spur);
-
-		int distance = 0;
-
-		for (int i = 0; i < this.getNumVertex(); i++) {
-			if (this.vertex.get(i) == spurNode)
-				break;
-			distance++;
-		}
-
-		return distance;
-
+	void detach(ShortestPathTree tree) {
+		this.trees.remove(tree);
 	}
 
 	/**
-	 * Gets the path between the two mentioned vertes
-	 * @param source First vertex 
-	 * @param spur Second vertex
-	 * @return An ArrayList with the vertex between the two mentioned nodes
+	 * Repairs the registered trees after the edge between the mentioned vertex was added or removed
 	 */
-	private ArrayList<Vertex> rootPath(String source, String spur) {
-
-		Vertex sourceNode = getGraphVertex(this, source);
-		Vertex spurNode = getGraphVertex(this, spur);
-
-		ArrayList<Vertex> rootPath = new ArrayList<Vertex>();
-
-		int distance = getDistance(source, spur);
-
-		for (int i = 0; i < (distance + 1); i++) {
-			if (this.vertex.get(i) != spurNode) {
-				rootPath.add(this.vertex.get(i));
-			} else {
-				rootPath.add(spurNode);
-				break;
-			}
+	private void edgeChanged(int from, int to) {
+		for (int t = 0; t < this.trees.size(); t++) {
+			this.trees.get(t).edgeChanged(from, to);
 		}
-
-		return rootPath;
-
 	}
 
 	/**
-	 * 
-	 * Class needed for dijkstra to get the correct priorities in a PriorityQueue
-	 *
+	 * Get the vertex with the passed ID from the mentioned graph
+	 * @param graph graph in which to search
+	 * @param id ID for which to search
+	 * @return The vertex
 	 */
-	private class VComparator implements Comparator<String> {
-		HashMap<String, Double> values;
-
-		public VComparator(HashMap<String, Double> vals) {
-			this.values = vals;
-		}
-
-		public void update(HashMap<String, Double> vals) {
-			this.values = vals;
-		}
-
-		@Override
-		public int compare(String v1, String v2) {
-			return ((int) (this.values.get(v1) - this.values.get(v2)));
-		}
-
+	public Vertex getGraphVertex(Graph graph, String id) {
+		return graph.index.get(id);
 	}
 
 	/**
 	 * Print all the edges in the graph
 	 */
 	public void printEdges() {
-		for (Vertex v : this.vertex) {
+		for (Vertex v : getVertex()) {
 			for (Edge e : v.getEdges()) {
 				System.out
 						.println((this.directed) ? (e.getFrom() + "-->" + e.getTo()) : (e.getV1() + "---" + e.getV2()));
@@ -780,7 +515,7 @@ public class Graph {
 	 */
 	public void printPath() {
 		ArrayList<String> visited = new ArrayList<>();
-		for (Vertex v : this.vertex) {
+		for (Vertex v : getVertex()) {
 			for (Edge e : v.getEdges()) {
 				if(this.directed){
 					System.out.println((this.directed) ? (e.getFrom() + "-->" + e.getTo()) : (e.getV1() + "---" + e.getV2()));
@@ -797,10 +532,15 @@ public class Graph {
 	}
 	/**
 	 * Gets this graph's vertex
-	 * @return An Arraylist with this graph's vertex
+	 * @return An Arraylist with this graph's vertex, in the order they were added
 	 */
 	public ArrayList<Vertex> getVertex() {
-		return vertex;
+		ArrayList<Vertex> list = new ArrayList<Vertex>(this.index.size());
+		for (int key = 0; key < this.keys; key++) {
+			if (this.vertex[key] != null)
+				list.add(this.vertex[key]);
+		}
+		return list;
 	}
 
 	public static void main(String args[]) {
@@ -0,0 +1,264 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Builds a Graph from many edges at once, much faster than calling Graph.addEdge for each of them. The edges are
+ * only appended to primitive arrays, sized up front from the expected counts, and nothing is checked until build:
+ * there the duplicate edges are dropped in one pass, keeping the first one added like Graph.addEdge does, and each
+ * vertex's adjacency arrays are created with their final size.
+ *
+ * The edges can be given one at a time as they're read, by the IDs or by the keys returned by addVertex, or many
+ * at once as arrays of keys and weight columns.
+ */
+public final class GraphBuilder {
+	private final boolean directed;
+	private final ArrayList<String> criteria;
+	private final HashMap<String, Integer> keys;
+	private final ArrayList<String> identifiers;
+
+	private int numEdges;
+	private int[] from;
+	private int[] to;
+	private double[][] weights;
+	private double[] xs = new double[0];
+	private double[] ys = new double[0];
+
+	/**
+	 * @Constructor: Creates an empty builder
+	 * @param directed Determines whether the graph is directed or not. true = directed, false = undirected
+	 * @param expectedVertex The number of vertex expected, only used to size the storage
+	 * @param expectedEdges The number of edges expected, duplicates included, only used to size the storage
+	 */
+	public GraphBuilder(boolean directed, int expectedVertex, int expectedEdges) {
+		this.directed = directed;
+		this.criteria = new ArrayList<String>(Arrays.asList(AbstractGraph.BUILT_IN_CRITERIA));
+		this.keys = new HashMap<String, Integer>(Math.max(16, (int) (expectedVertex / 0.75f) + 1));
+		this.identifiers = new ArrayList<String>(Math.max(16, expectedVertex));
+		int capacity = Math.max(16, expectedEdges);
+		this.from = new int[capacity];
+		this.to = new int[capacity];
+		this.weights = new double[this.criteria.size()][capacity];
+	}
+
+	/**
+	 * Adds a weight criteria to the graph being built, like Graph.addCriteria
+	 * @param name The name of the criteria
+	 * @return The criteria, its position in the weights of the edges
+	 */
+	public int addCriteria(String name) {
+		int existing = this.criteria.indexOf(name);
+		if (existing != -1) {
+			return existing;
+		}
+		this.criteria.add(name);
+		this.weights = Arrays.copyOf(this.weights, this.criteria.size());
+		this.weights[this.criteria.size() - 1] = new double[this.from.length];
+		return this.criteria.size() - 1;
+	}
+
+	/**
+	 * Adds a vertex, if there isn't one with the same ID yet
+	 * @param id The ID of the vertex
+	 * @return The key of the vertex, to be used with the other methods; the keys are given out from 0 in order
+	 */
+	public int addVertex(String id) {
+		if (id == null)
+			throw new IllegalArgumentException("The ID of a vertex can't be null");
+		Integer key = this.keys.get(id);
+		if (key != null) {
+			return key;
+		}
+		this.keys.put(id, this.identifiers.size());
+		this.identifiers.add(id);
+		return this.identifiers.size() - 1;
+	}
+
+	/**
+	 * Sets the coordinates of a vertex already added, like Graph.setCoordinates
+	 * @param key The key of the vertex
+	 * @param x The first coordinate (the longitude, in degrees, for geographic graphs)
+	 * @param y The second coordinate (the latitude, in degrees, for geographic graphs)
+	 */
+	public void setCoordinates(int key, double x, double y) {
+		if (key < 0 || key >= this.identifiers.size())
+			throw new IllegalArgumentException("There's no vertex with key " + key);
+		if (key >= this.xs.length) {
+			int capacity = Math.max(this.identifiers.size(), this.xs.length * 2);
+			int from = this.xs.length;
+			this.xs = Arrays.copyOf(this.xs, capacity);
+			this.ys = Arrays.copyOf(this.ys, capacity);
+			Arrays.fill(this.xs, from, capacity, Double.NaN);
+			Arrays.fill(this.ys, from, capacity, Double.NaN);
+		}
+		this.xs[key] = x;
+		this.ys[key] = y;
+	}
+
+	/**
+	 * Adds an edge, creating the vertex that don't exist yet
+	 * @param v1 first vertex
+	 * @param v2 second vertex
+	 * @param w weights for the edge, in the order of the criteria (the missing ones are 0)
+	 */
+	public void addEdge(String v1, String v2, double[] w) {
+		int key1 = addVertex(v1);
+		addEdge(key1, addVertex(v2), w);
+	}
+
+	/**
+	 * Adds an edge between vertex already added. The keys are only checked by build
+	 * @param v1 The key of the first vertex
+	 * @param v2 The key of the second vertex
+	 * @param w weights for the edge, in the order of the criteria (the missing ones are 0)
+	 */
+	public void addEdge(int v1, int v2, double[] w) {
+		ensureCapacity(this.numEdges + 1);
+		this.from[this.numEdges] = v1;
+		this.to[this.numEdges] = v2;
+		for (int c = 0; c < this.weights.length; c++) {
+			this.weights[c][this.numEdges] = (w != null && c < w.length) ? w[c] : 0.0;
+		}
+		this.numEdges++;
+	}
+
+	/**
+	 * Adds many edges between vertex already added. The keys are only checked by build
+	 * @param v1 The keys of the first vertex of each edge
+	 * @param v2 The keys of the second vertex of each edge
+	 * @param w The weights of the edges, one array per criteria with one weight per edge (the missing criteria
+	 *        are 0)
+	 */
+	public void addEdges(int[] v1, int[] v2, double[][] w) {
+		if (v1.length != v2.length)
+			throw new IllegalArgumentException("There must be as many first vertex as second vertex");
+		int count = v1.length;
+		ensureCapacity(this.numEdges + count);
+		System.arraycopy(v1, 0, this.from, this.numEdges, count);
+		System.arraycopy(v2, 0, this.to, this.numEdges, count);
+		for (int c = 0; c < this.weights.length; c++) {
+			if (w != null && c < w.length)
+				System.arraycopy(w[c], 0, this.weights[c], this.numEdges, count);
+			else
+				Arrays.fill(this.weights[c], this.numEdges, this.numEdges + count, 0.0);
+		}
+		this.numEdges += count;
+	}
+
+	/**
+	 * Creates the graph. The builder can still be used afterwards, to build a graph with more edges
+	 * @return The graph
+	 * @throws IllegalArgumentException if an edge refers to a key that wasn't given out by addVertex
+	 */
+	public Graph build() {
+		int n = this.identifiers.size();
+		for (int e = 0; e < this.numEdges; e++) {
+			if (this.from[e] < 0 || this.from[e] >= n || this.to[e] < 0 || this.to[e] >= n)
+				throw new IllegalArgumentException("Edge " + e + " refers to a vertex that doesn't exist");
+		}
+		boolean[] kept = deduplicate(n);
+
+		// the adjacency of every vertex in one pass, in the order the edges were added
+		int[] outDegree = new int[n];
+		int[] inDegree = new int[n];
+		for (int e = 0; e < this.numEdges; e++) {
+			if (!kept[e])
+				continue;
+			outDegree[this.from[e]]++;
+			if (this.directed)
+				inDegree[this.to[e]]++;
+			else if (this.from[e] != this.to[e])
+				outDegree[this.to[e]]++;
+		}
+
+		Graph graph = new Graph(this.directed, n, this.criteria);
+		Vertex[] vertex = new Vertex[n];
+		for (int key = 0; key < n; key++) {
+			graph.addVertex(this.identifiers.get(key));
+			vertex[key] = graph.vertexAt(key);
+			vertex[key].reserve(outDegree[key], inDegree[key]);
+			if (key < this.xs.length)
+				vertex[key].setCoordinates(this.xs[key], this.ys[key]);
+		}
+		for (int e = 0; e < this.numEdges; e++) {
+			if (!kept[e])
+				continue;
+			Vertex v1 = vertex[this.from[e]];
+			Vertex v2 = vertex[this.to[e]];
+			append(v1.targets, v1.weights, v1.degree++, v2.getKey(), e);
+			if (this.directed)
+				append(v2.sources, v2.inWeights, v2.inDegree++, v1.getKey(), e);
+			else if (v1 != v2)
+				append(v2.targets, v2.weights, v2.degree++, v1.getKey(), e);
+		}
+		for (int key = 0; key < n; key++) {
+			vertex[key].indexAdjacency();
+		}
+		return graph;
+	}
+
+	/**
+	 * Marks the first of each group of equal edges, an undirected edge being equal to its reverse. The edges are
+	 * counting-sorted by their lower vertex, keeping their order, and the edges of each vertex are then told apart
+	 * by stamping their other vertex
+	 * @param n The number of vertex
+	 * @return For each edge, true if it's kept
+	 */
+	private boolean[] deduplicate(int n) {
+		int[] offsets = new int[n + 1];
+		for (int e = 0; e < this.numEdges; e++) {
+			offsets[low(e) + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] sorted = new int[this.numEdges];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for (int e = 0; e < this.numEdges; e++) {
+			sorted[fill[low(e)]++] = e;
+		}
+
+		boolean[] kept = new boolean[this.numEdges];
+		int[] stamp = new int[n];
+		Arrays.fill(stamp, -1);
+		for (int v = 0; v < n; v++) {
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int e = sorted[i];
+				int other = high(e);
+				if (stamp[other] != v) {
+					stamp[other] = v;
+					kept[e] = true;
+				}
+			}
+		}
+		return kept;
+	}
+
+	private void append(int[] keys, double[][] columns, int position, int neighbour, int e) {
+		keys[position] = neighbour;
+		for (int c = 0; c < columns.length; c++) {
+			columns[c][position] = this.weights[c][e];
+		}
+	}
+
+	private int low(int e) {
+		return this.directed ? this.from[e] : Math.min(this.from[e], this.to[e]);
+	}
+
+	private int high(int e) {
+		return this.directed ? this.to[e] : Math.max(this.from[e], this.to[e]);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= this.from.length)
+			return;
+		capacity = Math.max(capacity, this.from.length * 2);
+		this.from = Arrays.copyOf(this.from, capacity);
+		this.to = Arrays.copyOf(this.to, capacity);
+		for (int c = 0; c < this.weights.length; c++) {
+			this.weights[c] = Arrays.copyOf(this.weights[c], capacity);
+		}
+	}
+}
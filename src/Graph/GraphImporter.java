@@ -0,0 +1,552 @@
+package Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads graphs from text files: DIMACS shortest path files, edge lists in CSV and road graphs exported as CSV nodes
+ * and ways. A file is memory-mapped in chunks of whole lines and the chunks are parsed in parallel straight from
+ * the mapped bytes, numbers included; only the vertex IDs become Strings, once each. The parsed edges are then added
+ * in the order of the file through a GraphBuilder, so of duplicate edges the first one is kept, like Graph.addEdge.
+ *
+ * The CSV files have no quoting: a field is everything between two separators, without the spaces around it.
+ */
+public final class GraphImporter {
+	private static final byte SPACE = ' ';
+
+	// size of the chunks that are parsed in parallel, in bytes
+	static int chunkSize = 1 << 23;
+
+	private GraphImporter() {
+	}
+
+	/**
+	 * Reads a DIMACS shortest path graph (".gr": a "p sp vertex arcs" line, then "a from to weight" lines, with
+	 * comments starting with "c"), on the common ForkJoinPool. The graph is directed and its vertex are named "1"
+	 * to the number of vertex
+	 * @param graph The .gr file
+	 * @param coordinates The .co file, with "v vertex x y" lines in millionths of a degree as in the files of the
+	 *        9th DIMACS challenge, converted to degrees; null for none
+	 * @param criteria The weight the arcs' weights are read into (distance or time), the other one being 0
+	 * @return The graph
+	 * @throws IOException if a file can't be read or is malformed
+	 */
+	public static Graph readDimacs(File graph, File coordinates, int criteria) throws IOException {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		return readDimacs(graph, coordinates, criteria, pool, pool.getParallelism());
+	}
+
+	/**
+	 * Reads a DIMACS shortest path graph, as readDimacs(graph, coordinates, criteria)
+	 * @param graph The .gr file
+	 * @param coordinates The .co file, null for none
+	 * @param criteria The weight the arcs' weights are read into (distance or time)
+	 * @param executor The executor to parse the chunks on
+	 * @param threads The number of chunks parsed at once
+	 * @return The graph
+	 * @throws IOException if a file can't be read or is malformed
+	 */
+	public static Graph readDimacs(File graph, File coordinates, int criteria, ExecutorService executor, int threads)
+			throws IOException {
+		if (criteria != AbstractGraph.DISTANCE && criteria != AbstractGraph.TIME)
+			throw new IllegalArgumentException("Unknown criteria " + criteria);
+		ArrayList<TextChunk> chunks = TextChunk.split(graph, chunkSize);
+		int[] problem = readProblemLine(chunks, graph);
+		final int n = problem[0];
+		Rows[] arcs = parse(chunks, new RowParser() {
+			@Override
+			public void parse(TextChunk chunk, Rows rows) throws IOException {
+				while (chunk.hasMore()) {
+					if (!chunk.field(SPACE) || chunk.first() == 'c') {
+						chunk.nextLine();
+						continue;
+					}
+					if (chunk.end - chunk.start != 1 || chunk.first() != 'a')
+						throw chunk.malformed("expected an arc");
+					rows.put(readVertex(chunk, n));
+					rows.put(readVertex(chunk, n));
+					chunk.requireField(SPACE, "weight");
+					rows.put(chunk.parseDouble());
+					chunk.nextLine();
+				}
+			}
+		}, executor, threads);
+
+		GraphBuilder builder = new GraphBuilder(true, n, problem[1]);
+		for (int id = 1; id <= n; id++) {
+			builder.addVertex(Integer.toString(id));
+		}
+		double[] weight = new double[2];
+		for (Rows rows : arcs) {
+			for (int r = 0; r < rows.numDoubles; r++) {
+				weight[criteria] = rows.doubles[r];
+				builder.addEdge(rows.ints[2 * r], rows.ints[2 * r + 1], weight);
+			}
+		}
+		if (coordinates != null)
+			readDimacsCoordinates(coordinates, n, builder, executor, threads);
+		return builder.build();
+	}
+
+	/**
+	 * Reads the "p" line that comes before the arcs, leaving the chunks after it
+	 * @return The number of vertex and of arcs
+	 */
+	private static int[] readProblemLine(ArrayList<TextChunk> chunks, File file) throws IOException {
+		for (TextChunk chunk : chunks) {
+			while (chunk.hasMore()) {
+				if (!chunk.field(SPACE) || chunk.first() == 'c') {
+					chunk.nextLine();
+					continue;
+				}
+				if (chunk.end - chunk.start != 1 || chunk.first() != 'p')
+					throw chunk.malformed("expected the problem line");
+				chunk.requireField(SPACE, "problem type");
+				chunk.requireField(SPACE, "number of vertex");
+				long n = chunk.parseLong();
+				chunk.requireField(SPACE, "number of arcs");
+				long m = chunk.parseLong();
+				if (n < 0 || n > Integer.MAX_VALUE || m < 0 || m > Integer.MAX_VALUE)
+					throw chunk.malformed("too many vertex or arcs");
+				chunk.nextLine();
+				return new int[] { (int) n, (int) m };
+			}
+		}
+		throw new IOException(file + " has no problem line");
+	}
+
+	private static int readVertex(TextChunk chunk, int n) throws IOException {
+		chunk.requireField(SPACE, "vertex");
+		long id = chunk.parseLong();
+		if (id < 1 || id > n)
+			throw chunk.malformed("vertex " + id + " isn't between 1 and " + n);
+		return (int) id - 1;
+	}
+
+	private static void readDimacsCoordinates(File file, final int n, GraphBuilder builder, ExecutorService executor,
+			int threads) throws IOException {
+		ArrayList<TextChunk> chunks = TextChunk.split(file, chunkSize);
+		Rows[] parsed = parse(chunks, new RowParser() {
+			@Override
+			public void parse(TextChunk chunk, Rows rows) throws IOException {
+				while (chunk.hasMore()) {
+					if (!chunk.field(SPACE) || chunk.first() == 'c' || chunk.first() == 'p') {
+						chunk.nextLine();
+						continue;
+					}
+					if (chunk.end - chunk.start != 1 || chunk.first() != 'v')
+						throw chunk.malformed("expected a vertex");
+					rows.put(readVertex(chunk, n));
+					chunk.requireField(SPACE, "x");
+					rows.put(chunk.parseDouble() / 1e6);
+					chunk.requireField(SPACE, "y");
+					rows.put(chunk.parseDouble() / 1e6);
+					chunk.nextLine();
+				}
+			}
+		}, executor, threads);
+		for (Rows rows : parsed) {
+			for (int r = 0; r < rows.numInts; r++) {
+				builder.setCoordinates(rows.ints[r], rows.doubles[2 * r], rows.doubles[2 * r + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Reads an edge list, one edge per line with the IDs of its vertex in the first two columns, on the common
+	 * ForkJoinPool
+	 * @param file The file
+	 * @param separator The character between the columns
+	 * @param header If true the first line holds the names of the columns and is skipped
+	 * @param directed Determines whether the graph is directed or not. true = directed, false = undirected
+	 * @param distanceColumn The column of the distance, counting from 0; -1 if there's none, in which case it's 0
+	 * @param timeColumn The column of the time, counting from 0; -1 if there's none, in which case it's 0
+	 * @return The graph
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public static Graph readEdgeList(File file, char separator, boolean header, boolean directed, int distanceColumn,
+			int timeColumn) throws IOException {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		return readEdgeList(file, separator, header, directed, distanceColumn, timeColumn, pool,
+				pool.getParallelism());
+	}
+
+	/**
+	 * Reads an edge list, as readEdgeList(file, separator, header, directed, distanceColumn, timeColumn)
+	 * @param file The file
+	 * @param separator The character between the columns
+	 * @param header If true the first line holds the names of the columns and is skipped
+	 * @param directed Determines whether the graph is directed or not. true = directed, false = undirected
+	 * @param distanceColumn The column of the distance, counting from 0; -1 if there's none
+	 * @param timeColumn The column of the time, counting from 0; -1 if there's none
+	 * @param executor The executor to parse the chunks on
+	 * @param threads The number of chunks parsed at once
+	 * @return The graph
+	 * @throws IOException if the file can't be read or is malformed
+	 */
+	public static Graph readEdgeList(File file, char separator, boolean header, boolean directed,
+			final int distanceColumn, final int timeColumn, ExecutorService executor, int threads) throws IOException {
+		final byte sep = toByte(separator);
+		if (distanceColumn == 0 || distanceColumn == 1 || distanceColumn < -1 || timeColumn == 0 || timeColumn == 1
+				|| timeColumn < -1)
+			throw new IllegalArgumentException("The weights must be in columns after the vertex");
+		final int last = Math.max(1, Math.max(distanceColumn, timeColumn));
+		ArrayList<TextChunk> chunks = TextChunk.split(file, chunkSize);
+		if (header && !chunks.isEmpty())
+			chunks.get(0).nextLine();
+
+		Rows[] edges = parse(chunks, new RowParser() {
+			@Override
+			public void parse(TextChunk chunk, Rows rows) throws IOException {
+				while (chunk.hasMore()) {
+					if (!chunk.field(sep)) {
+						chunk.nextLine();
+						continue;
+					}
+					rows.putField(chunk);
+					chunk.requireField(sep, "second vertex");
+					rows.putField(chunk);
+					double distance = 0.0;
+					double time = 0.0;
+					for (int column = 2; column <= last; column++) {
+						if (!chunk.field(sep))
+							throw chunk.malformed("missing column " + column);
+						if (column == distanceColumn)
+							distance = chunk.parseDouble();
+						if (column == timeColumn)
+							time = chunk.parseDouble();
+					}
+					rows.put(distance);
+					rows.put(time);
+					chunk.nextLine();
+				}
+			}
+		}, executor, threads);
+
+		int numEdges = 0;
+		for (Rows rows : edges) {
+			numEdges += rows.numDoubles / 2;
+		}
+		GraphBuilder builder = new GraphBuilder(directed, 0, numEdges);
+		NameTable names = new NameTable(builder);
+		double[] weight = new double[2];
+		for (int c = 0; c < chunks.size(); c++) {
+			TextChunk chunk = chunks.get(c);
+			Rows rows = edges[c];
+			for (int r = 0; r < rows.numDoubles / 2; r++) {
+				int from = names.key(chunk, rows.ints, 6 * r, true);
+				int to = names.key(chunk, rows.ints, 6 * r + 3, true);
+				weight[0] = rows.doubles[2 * r];
+				weight[1] = rows.doubles[2 * r + 1];
+				builder.addEdge(from, to, weight);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Reads a road graph exported as two CSV files, on the common ForkJoinPool. The nodes file has a node per line:
+	 * its ID, longitude and latitude in degrees. The ways file has a node of a way per line: the ID of the way and
+	 * the ID of the node, with the nodes of each way on consecutive lines in the order of the way. Each two
+	 * consecutive nodes of a way become an edge whose distance is the great circle distance between them, in metres
+	 * @param nodes The nodes file
+	 * @param ways The ways file
+	 * @param separator The character between the columns
+	 * @param header If true the first line of each file holds the names of the columns and is skipped
+	 * @param directed If true the graph is directed and the edges go in the order of the ways, otherwise the graph
+	 *        is undirected
+	 * @param speed The speed at which the edges are travelled, in metres per unit of time, to compute their time
+	 * @return The graph
+	 * @throws IOException if a file can't be read or is malformed, or if a way has a node that isn't in nodes
+	 */
+	public static Graph readNodesAndWays(File nodes, File ways, char separator, boolean header, boolean directed,
+			double speed) throws IOException {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		return readNodesAndWays(nodes, ways, separator, header, directed, speed, pool, pool.getParallelism());
+	}
+
+	/**
+	 * Reads a road graph exported as two CSV files, as readNodesAndWays(nodes, ways, separator, header, directed,
+	 * speed)
+	 * @param nodes The nodes file
+	 * @param ways The ways file
+	 * @param separator The character between the columns
+	 * @param header If true the first line of each file holds the names of the columns and is skipped
+	 * @param directed If true the graph is directed and the edges go in the order of the ways
+	 * @param speed The speed at which the edges are travelled, in metres per unit of time
+	 * @param executor The executor to parse the chunks on
+	 * @param threads The number of chunks parsed at once
+	 * @return The graph
+	 * @throws IOException if a file can't be read or is malformed, or if a way has a node that isn't in nodes
+	 */
+	public static Graph readNodesAndWays(File nodes, File ways, char separator, boolean header, boolean directed,
+			double speed, ExecutorService executor, int threads) throws IOException {
+		final byte sep = toByte(separator);
+		ArrayList<TextChunk> nodeChunks = TextChunk.split(nodes, chunkSize);
+		ArrayList<TextChunk> wayChunks = TextChunk.split(ways, chunkSize);
+		if (header && !nodeChunks.isEmpty())
+			nodeChunks.get(0).nextLine();
+		if (header && !wayChunks.isEmpty())
+			wayChunks.get(0).nextLine();
+
+		Rows[] parsedNodes = parse(nodeChunks, new RowParser() {
+			@Override
+			public void parse(TextChunk chunk, Rows rows) throws IOException {
+				while (chunk.hasMore()) {
+					if (!chunk.field(sep)) {
+						chunk.nextLine();
+						continue;
+					}
+					rows.putField(chunk);
+					chunk.requireField(sep, "longitude");
+					rows.put(chunk.parseDouble());
+					chunk.requireField(sep, "latitude");
+					rows.put(chunk.parseDouble());
+					chunk.nextLine();
+				}
+			}
+		}, executor, threads);
+		Rows[] parsedWays = parse(wayChunks, new RowParser() {
+			@Override
+			public void parse(TextChunk chunk, Rows rows) throws IOException {
+				while (chunk.hasMore()) {
+					if (!chunk.field(sep)) {
+						chunk.nextLine();
+						continue;
+					}
+					rows.putField(chunk);
+					chunk.requireField(sep, "node");
+					rows.putField(chunk);
+					chunk.nextLine();
+				}
+			}
+		}, executor, threads);
+
+		int numNodes = 0;
+		for (Rows rows : parsedNodes) {
+			numNodes += rows.numDoubles / 2;
+		}
+		int numWayNodes = 0;
+		for (Rows rows : parsedWays) {
+			numWayNodes += rows.numInts / 6;
+		}
+		GraphBuilder builder = new GraphBuilder(directed, numNodes, numWayNodes);
+		NameTable names = new NameTable(builder);
+		double[] xs = new double[numNodes];
+		double[] ys = new double[numNodes];
+		for (int c = 0; c < nodeChunks.size(); c++) {
+			Rows rows = parsedNodes[c];
+			for (int r = 0; r < rows.numDoubles / 2; r++) {
+				int key = names.key(nodeChunks.get(c), rows.ints, 3 * r, true);
+				xs[key] = rows.doubles[2 * r];
+				ys[key] = rows.doubles[2 * r + 1];
+				builder.setCoordinates(key, xs[key], ys[key]);
+			}
+		}
+
+		double[] weight = new double[2];
+		TextChunk previousChunk = null;
+		int[] previousInts = null;
+		int previousWay = 0;
+		int previous = -1;
+		for (int c = 0; c < wayChunks.size(); c++) {
+			TextChunk chunk = wayChunks.get(c);
+			int[] ints = parsedWays[c].ints;
+			for (int r = 0; r < parsedWays[c].numInts; r += 6) {
+				int node = names.key(chunk, ints, r + 3, false);
+				if (node == -1)
+					throw new IOException("Way " + chunk.string(ints[r], ints[r + 1]) + " of " + ways
+							+ " has the node " + chunk.string(ints[r + 3], ints[r + 4]) + ", which isn't in " + nodes);
+				boolean sameWay = previous != -1 && chunk.equals(ints[r], ints[r + 1], previousChunk,
+						previousInts[previousWay], previousInts[previousWay + 1]);
+				if (sameWay && node != previous) {
+					weight[0] = Heuristics.greatCircle(xs[previous], ys[previous], xs[node], ys[node],
+							Heuristics.EARTH_RADIUS);
+					weight[1] = weight[0] / speed;
+					builder.addEdge(previous, node, weight);
+				}
+				previous = node;
+				previousChunk = chunk;
+				previousInts = ints;
+				previousWay = r;
+			}
+		}
+		return builder.build();
+	}
+
+	private static byte toByte(char separator) {
+		if (separator == '\n' || separator == '\r' || separator > 127)
+			throw new IllegalArgumentException("The separator must be an ASCII character other than a line break");
+		return (byte) separator;
+	}
+
+	/**
+	 * Parses every chunk, with threads workers taking the next chunk until none are left
+	 * @return The rows of each chunk, in the order of the chunks
+	 */
+	private static Rows[] parse(final ArrayList<TextChunk> chunks, final RowParser parser, ExecutorService executor,
+			int threads) throws IOException {
+		final Rows[] rows = new Rows[chunks.size()];
+		final AtomicInteger next = new AtomicInteger();
+		ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int w = 0; w < Math.min(Math.max(1, threads), chunks.size()); w++) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					int i;
+					while ((i = next.getAndIncrement()) < chunks.size()) {
+						rows[i] = new Rows();
+						parser.parse(chunks.get(i), rows[i]);
+					}
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while parsing", e);
+		} catch (ExecutionException e) {
+			// a ForkJoinPool wraps the IOException of a worker in a RuntimeException
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+			}
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			// stops the workers that haven't started yet if one failed
+			next.set(chunks.size());
+		}
+		return rows;
+	}
+
+	/**
+	 * Parses the lines of a chunk into rows
+	 */
+	private interface RowParser {
+		void parse(TextChunk chunk, Rows rows) throws IOException;
+	}
+
+	/**
+	 * The values parsed from one chunk, the ints and the doubles of every row one after the other. A field kept
+	 * for later, like a vertex ID, is three ints: its start and end in the chunk and its hash
+	 */
+	private static final class Rows {
+		int[] ints = new int[256];
+		int numInts;
+		double[] doubles = new double[256];
+		int numDoubles;
+
+		void put(int value) {
+			if (this.numInts == this.ints.length)
+				this.ints = Arrays.copyOf(this.ints, this.numInts * 2);
+			this.ints[this.numInts++] = value;
+		}
+
+		void put(double value) {
+			if (this.numDoubles == this.doubles.length)
+				this.doubles = Arrays.copyOf(this.doubles, this.numDoubles * 2);
+			this.doubles[this.numDoubles++] = value;
+		}
+
+		void putField(TextChunk chunk) {
+			put(chunk.start);
+			put(chunk.end);
+			put(chunk.hash());
+		}
+	}
+
+	/**
+	 * Gives the vertex IDs read from the chunks their keys in the builder, creating the String of an ID only the
+	 * first time it's seen. Open addressing over the hashes of the IDs, whose bytes are kept in one array
+	 */
+	private static final class NameTable {
+		private final GraphBuilder builder;
+		private int[] slots;
+		private int[] hashes = new int[64];
+		private int[] keys = new int[64];
+		private int[] starts = new int[65];
+		private byte[] bytes = new byte[1024];
+		private int size;
+
+		NameTable(GraphBuilder builder) {
+			this.builder = builder;
+			this.slots = new int[128];
+			Arrays.fill(this.slots, -1);
+		}
+
+		/**
+		 * Gets the key of an ID
+		 * @param chunk The chunk the ID was read from
+		 * @param field The ints of a row
+		 * @param at The position of the ID's start, end and hash in field
+		 * @param create If true an ID seen for the first time is added to the builder
+		 * @return The key, -1 if the ID hasn't been seen and create is false
+		 */
+		int key(TextChunk chunk, int[] field, int at, boolean create) {
+			int start = field[at];
+			int end = field[at + 1];
+			int hash = field[at + 2];
+			int mask = this.slots.length - 1;
+			int slot = slot(hash, mask);
+			for (int e; (e = this.slots[slot]) != -1; slot = (slot + 1) & mask) {
+				if (this.hashes[e] == hash
+						&& chunk.equals(start, end, this.bytes, this.starts[e], this.starts[e + 1] - this.starts[e]))
+					return this.keys[e];
+			}
+			if (!create)
+				return -1;
+
+			int e = this.size++;
+			if (e + 1 == this.hashes.length) {
+				this.hashes = Arrays.copyOf(this.hashes, this.hashes.length * 2);
+				this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+				this.starts = Arrays.copyOf(this.starts, this.starts.length * 2);
+			}
+			int length = end - start;
+			if (this.starts[e] + length > this.bytes.length)
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.starts[e] + length));
+			chunk.copy(start, end, this.bytes, this.starts[e]);
+			this.starts[e + 1] = this.starts[e] + length;
+			this.hashes[e] = hash;
+			this.keys[e] = this.builder.addVertex(chunk.string(start, end));
+			this.slots[slot] = e;
+			if (this.size * 2 > this.slots.length)
+				rehash();
+			return this.keys[e];
+		}
+
+		private static int slot(int hash, int mask) {
+			int h = hash * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		private void rehash() {
+			this.slots = new int[this.slots.length * 2];
+			Arrays.fill(this.slots, -1);
+			int mask = this.slots.length - 1;
+			for (int e = 0; e < this.size; e++) {
+				int slot = slot(this.hashes[e], mask);
+				while (this.slots[slot] != -1) {
+					slot = (slot + 1) & mask;
+				}
+				this.slots[slot] = e;
+			}
+		}
+	}
+}
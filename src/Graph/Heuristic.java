@@ -0,0 +1,18 @@
+package Graph;
+
+/**
+ * Estimate of the cost still needed to reach the target of an A* search. Built-in implementations are in
+ * Heuristics.
+ */
+public interface Heuristic {
+
+	/**
+	 * Gets a lower bound of the cost of the cheapest path from a vertex to the target. The search only returns
+	 * shortest paths if this never overestimates the real cost
+	 * @param graph The graph being searched
+	 * @param key The key of the vertex
+	 * @param target The key of the target of the search
+	 * @return The lower bound, for the criteria the search uses
+	 */
+	double estimate(AbstractGraph graph, int key, int target);
+}
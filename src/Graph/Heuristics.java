@@ -0,0 +1,109 @@
+package Graph;
+
+/**
+ * Heuristics for A* based on the coordinates of the vertex. Each one estimates 0 when one of the vertex has no
+ * coordinates, which is always safe. For DISTANCE, the edge distances must never be shorter than the straight line
+ * between their vertex; for TIME, no edge may be travelled faster than the maximum speed passed.
+ */
+public final class Heuristics {
+	/**
+	 * Mean radius of the Earth, in metres
+	 */
+	public static final double EARTH_RADIUS = 6371008.8;
+
+	/**
+	 * Heuristic that always estimates 0, which makes A* behave like Dijkstra
+	 */
+	public static final Heuristic NONE = new Heuristic() {
+		@Override
+		public double estimate(AbstractGraph graph, int key, int target) {
+			return 0.0;
+		}
+	};
+
+	private Heuristics() {
+	}
+
+	/**
+	 * Straight line distance between the coordinates, for graphs in a plane whose edge distances are in the unit
+	 * of the coordinates
+	 * @return The heuristic, for DISTANCE
+	 */
+	public static Heuristic euclidean() {
+		return euclidean(1.0);
+	}
+
+	/**
+	 * Straight line distance between the coordinates, divided by the maximum speed
+	 * @param maxSpeed The highest speed at which any edge is travelled, in coordinate units per unit of time
+	 * @return The heuristic, for TIME
+	 */
+	public static Heuristic euclideanTime(double maxSpeed) {
+		return euclidean(1.0 / maxSpeed);
+	}
+
+	private static Heuristic euclidean(final double scale) {
+		return new Heuristic() {
+			@Override
+			public double estimate(AbstractGraph graph, int key, int target) {
+				double dx = graph.getX(key) - graph.getX(target);
+				double dy = graph.getY(key) - graph.getY(target);
+				double d = Math.sqrt(dx * dx + dy * dy);
+				return Double.isNaN(d) ? 0.0 : d * scale;
+			}
+		};
+	}
+
+	/**
+	 * Great circle distance between the coordinates, for graphs whose vertex have longitude (x) and latitude (y)
+	 * in degrees and whose edge distances are in metres
+	 * @return The heuristic, for DISTANCE
+	 */
+	public static Heuristic haversine() {
+		return haversine(EARTH_RADIUS, 1.0);
+	}
+
+	/**
+	 * Great circle distance between the coordinates, divided by the maximum speed
+	 * @param maxSpeed The highest speed at which any edge is travelled, in metres per unit of time
+	 * @return The heuristic, for TIME
+	 */
+	public static Heuristic haversineTime(double maxSpeed) {
+		return haversine(EARTH_RADIUS, 1.0 / maxSpeed);
+	}
+
+	/**
+	 * Great circle distance between the coordinates, on a sphere of the passed radius
+	 * @param radius The radius of the sphere, in the unit of the edge distances (6371.0088 for kilometres)
+	 * @param scale The factor by which the distance is multiplied (1 / maximum speed for TIME)
+	 * @return The heuristic
+	 */
+	public static Heuristic haversine(final double radius, final double scale) {
+		return new Heuristic() {
+			@Override
+			public double estimate(AbstractGraph graph, int key, int target) {
+				double d = greatCircle(graph.getX(key), graph.getY(key), graph.getX(target), graph.getY(target),
+						radius);
+				return Double.isNaN(d) ? 0.0 : d * scale;
+			}
+		};
+	}
+
+	/**
+	 * Great circle distance between two points, by the haversine formula
+	 * @param x1 The longitude of the first point, in degrees
+	 * @param y1 The latitude of the first point, in degrees
+	 * @param x2 The longitude of the second point, in degrees
+	 * @param y2 The latitude of the second point, in degrees
+	 * @param radius The radius of the sphere
+	 * @return The distance, in the unit of the radius; NaN if a coordinate is NaN
+	 */
+	static double greatCircle(double x1, double y1, double x2, double y2, double radius) {
+		double lat1 = Math.toRadians(y1);
+		double lat2 = Math.toRadians(y2);
+		double sinLat = Math.sin((lat2 - lat1) / 2);
+		double sinLon = Math.sin(Math.toRadians(x2 - x1) / 2);
+		double h = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+		return 2 * radius * Math.asin(Math.min(1.0, Math.sqrt(h)));
+	}
+}
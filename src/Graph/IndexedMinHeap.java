@@ -0,0 +1,160 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of vertex keys ordered by a primitive double priority. Each vertex key knows its position in the
+ * heap, so a vertex can be found and have its priority lowered in O(log n) instead of being removed and added again.
+ */
+final class IndexedMinHeap {
+	private int[] heap;
+	private int[] position;
+	private double[] priority;
+	private int size;
+
+	/**
+	 * @Constructor: Creates an empty heap
+	 * @param capacity The number of vertex keys the heap can hold, keys go from 0 to capacity - 1
+	 */
+	IndexedMinHeap(int capacity) {
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.priority = new double[capacity];
+		Arrays.fill(this.position, -1);
+	}
+
+	/**
+	 * Makes sure the heap can hold the keys from 0 to capacity - 1
+	 * @param capacity The number of vertex keys
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity <= this.position.length)
+			return;
+		int old = this.position.length;
+		this.heap = Arrays.copyOf(this.heap, capacity);
+		this.position = Arrays.copyOf(this.position, capacity);
+		this.priority = Arrays.copyOf(this.priority, capacity);
+		Arrays.fill(this.position, old, capacity, -1);
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean contains(int key) {
+		return this.position[key] != -1;
+	}
+
+	/**
+	 * Gets the priority a key has in the heap
+	 * @param key The vertex key, must be in the heap
+	 * @return The priority
+	 */
+	double getPriority(int key) {
+		return this.priority[key];
+	}
+
+	/**
+	 * Adds a key to the heap, or lowers its priority if it's already there
+	 * @param key The vertex key
+	 * @param value The priority
+	 * @return true if the key was added or its priority lowered, false if it already had a lower or equal priority
+	 */
+	boolean addOrDecrease(int key, double value) {
+		if (this.position[key] == -1) {
+			this.heap[this.size] = key;
+			this.position[key] = this.size;
+			this.priority[key] = value;
+			siftUp(this.size++);
+			return true;
+		}
+		if (value < this.priority[key]) {
+			this.priority[key] = value;
+			siftUp(this.position[key]);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the key with the lowest priority, without removing it
+	 * @return The key
+	 */
+	int peek() {
+		return this.heap[0];
+	}
+
+	/**
+	 * Gets the lowest priority in the heap
+	 * @return The priority
+	 */
+	double peekPriority() {
+		return this.priority[this.heap[0]];
+	}
+
+	/**
+	 * Removes the key with the lowest priority
+	 * @return The key
+	 */
+	int poll() {
+		int top = this.heap[0];
+		this.position[top] = -1;
+		if (--this.size > 0) {
+			int last = this.heap[this.size];
+			this.heap[0] = last;
+			this.position[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Removes every key from the heap, in O(size)
+	 */
+	void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.position[this.heap[i]] = -1;
+		}
+		this.size = 0;
+	}
+
+	private void siftUp(int i) {
+		int key = this.heap[i];
+		double value = this.priority[key];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int parentKey = this.heap[parent];
+			if (this.priority[parentKey] <= value)
+				break;
+			this.heap[i] = parentKey;
+			this.position[parentKey] = i;
+			i = parent;
+		}
+		this.heap[i] = key;
+		this.position[key] = i;
+	}
+
+	private void siftDown(int i) {
+		int key = this.heap[i];
+		double value = this.priority[key];
+		int half = this.size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < this.size && this.priority[this.heap[right]] < this.priority[this.heap[child]])
+				child = right;
+			int childKey = this.heap[child];
+			if (value <= this.priority[childKey])
+				break;
+			this.heap[i] = childKey;
+			this.position[childKey] = i;
+			i = child;
+		}
+		this.heap[i] = key;
+		this.position[key] = i;
+	}
+}
@@ -0,0 +1,112 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A vertex and the ones that can be reached from it for less than a given cost, found by AbstractGraph.isochrone.
+ * Each one comes with the cost of its shortest path from the start, and they are in order of that cost, so the start
+ * is always the first one.
+ */
+public final class Isochrone {
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final double range;
+	private int[] keys = new int[16];
+	private double[] costs = new double[16];
+	private int size;
+
+	/**
+	 * @Constructor: Creates an empty result, filled by the search
+	 * @param graph The graph searched
+	 * @param criteria The weight used (distance or time)
+	 * @param range The cost the vertex are below
+	 */
+	Isochrone(AbstractGraph graph, int criteria, double range) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.range = range;
+	}
+
+	void add(int key, double cost) {
+		if (this.size == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.size * 2);
+			this.costs = Arrays.copyOf(this.costs, this.size * 2);
+		}
+		this.keys[this.size] = key;
+		this.costs[this.size++] = cost;
+	}
+
+	/**
+	 * Gets the weight used by the search
+	 * @return The criteria (distance or time)
+	 */
+	public int getCriteria() {
+		return this.criteria;
+	}
+
+	/**
+	 * Gets the cost all of the vertex are below
+	 * @return The range of the search
+	 */
+	public double getRange() {
+		return this.range;
+	}
+
+	/**
+	 * Gets the number of vertex reached
+	 * @return The number of vertex, start included
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the ID of a reached vertex
+	 * @param i The position of the vertex, from 0 to size() - 1
+	 * @return The ID
+	 */
+	public String getIdentifier(int i) {
+		checkPosition(i);
+		return this.graph.getIdentifier(this.keys[i]);
+	}
+
+	/**
+	 * Gets the cost of the shortest path from the start to a reached vertex
+	 * @param i The position of the vertex, from 0 to size() - 1
+	 * @return The cost
+	 */
+	public double getCost(int i) {
+		checkPosition(i);
+		return this.costs[i];
+	}
+
+	/**
+	 * Gets the reached vertex as the Vertex lists returned by rangedDfs
+	 * @return An ArrayList with a Vertex for each vertex reached, in order of cost
+	 */
+	public ArrayList<Vertex> getVertex() {
+		ArrayList<Vertex> list = new ArrayList<Vertex>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			list.add(this.graph.toVertex(this.keys[i]));
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the reached vertex as a set, for set operations with other searches
+	 * @return A new set with every vertex reached
+	 */
+	public VertexSet getVertexSet() {
+		long[] words = VertexSet.newWords(this.graph);
+		for (int i = 0; i < this.size; i++) {
+			VertexSet.set(words, this.keys[i]);
+		}
+		return new VertexSet(this.graph, words, false);
+	}
+
+	private void checkPosition(int i) {
+		if (i < 0 || i >= this.size)
+			throw new IndexOutOfBoundsException("Position " + i + " of an isochrone with " + this.size + " vertex");
+	}
+}
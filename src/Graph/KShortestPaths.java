@@ -0,0 +1,223 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * Yen's algorithm for the k shortest loopless paths between two vertex. Each spur search is a Dijkstra that skips
+ * the vertex of the root path and the edges already used by the accepted paths sharing that root, through a mask
+ * kept in this object instead of changes to the graph. An instance belongs to a single query, so several queries
+ * can run on the same graph at the same time.
+ */
+final class KShortestPaths {
+	private final AbstractGraph graph;
+	private final int criteria;
+
+	private final QueryWorkspace workspace;
+	private QueryWorkspace.Side search;
+
+	private final boolean[] blockedVertex;
+	private int spur;
+	private int[] blockedTargets = new int[4];
+	private int numBlockedTargets;
+
+	/**
+	 * A path found by the search, with the cost of every one of its prefixes
+	 */
+	private static final class Path {
+		final int[] keys;
+		final double[] cost;
+		final int deviation;
+
+		Path(int[] keys, double[] cost, int deviation) {
+			this.keys = keys;
+			this.cost = cost;
+			this.deviation = deviation;
+		}
+
+		double getCost() {
+			return this.cost[this.cost.length - 1];
+		}
+
+		public boolean equals(Object obj) {
+			return (obj instanceof Path) && Arrays.equals(((Path) obj).keys, this.keys);
+		}
+
+		public int hashCode() {
+			return Arrays.hashCode(this.keys);
+		}
+	}
+
+	private static final Comparator<Path> BY_COST = new Comparator<Path>() {
+		@Override
+		public int compare(Path p1, Path p2) {
+			int c = Double.compare(p1.getCost(), p2.getCost());
+			return (c != 0) ? c : Integer.compare(p1.keys.length, p2.keys.length);
+		}
+	};
+
+	/**
+	 * @Constructor: Creates the search state for one query
+	 * @param graph The graph to search
+	 * @param criteria The weight to use (distance or time)
+	 * @param workspace The arrays to use for the spur searches
+	 */
+	KShortestPaths(AbstractGraph graph, int criteria, QueryWorkspace workspace) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.workspace = workspace;
+		this.blockedVertex = new boolean[graph.getNumKeys()];
+	}
+
+	/**
+	 * Gets the nrPaths shortest loopless paths from start to end, in order of cost
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @param nrPaths Number of paths to get
+	 * @return The keys of the vertex of each path, fewer than nrPaths if there aren't that many paths
+	 */
+	ArrayList<int[]> find(int start, int end, int nrPaths) {
+		ArrayList<int[]> result = new ArrayList<int[]>();
+		Path first = search(start, end, null, 0);
+		if (first == null) {
+			return result;
+		}
+
+		ArrayList<Path> accepted = new ArrayList<Path>();
+		PriorityQueue<Path> candidates = new PriorityQueue<Path>(11, BY_COST);
+		HashSet<Path> seen = new HashSet<Path>();
+		accepted.add(first);
+		seen.add(first);
+
+		for (int k = 1; k < nrPaths; k++) {
+			Path current = accepted.get(k - 1);
+
+			// spur nodes before the deviation of the current path were already tried from the path it deviated from
+			for (int i = current.deviation; i < current.keys.length - 1; i++) {
+				block(current, i, accepted);
+				Path candidate = search(current.keys[i], end, current, i);
+				unblock(current, i);
+
+				if (candidate != null && seen.add(candidate)) {
+					candidates.add(candidate);
+				}
+			}
+
+			if (candidates.isEmpty())
+				break;
+			accepted.add(candidates.poll());
+		}
+
+		for (Path p : accepted) {
+			result.add(p.keys);
+		}
+		return result;
+	}
+
+	/**
+	 * Masks the root path of current up to position i, and the edges leaving the spur node taken by the accepted
+	 * paths that share that root
+	 */
+	private void block(Path current, int i, ArrayList<Path> accepted) {
+		for (int j = 0; j < i; j++) {
+			this.blockedVertex[current.keys[j]] = true;
+		}
+		this.spur = current.keys[i];
+		this.numBlockedTargets = 0;
+		for (Path p : accepted) {
+			if (p.keys.length > i + 1 && sharesRoot(p, current, i)) {
+				if (this.numBlockedTargets == this.blockedTargets.length) {
+					this.blockedTargets = Arrays.copyOf(this.blockedTargets, this.numBlockedTargets * 2);
+				}
+				this.blockedTargets[this.numBlockedTargets++] = p.keys[i + 1];
+			}
+		}
+	}
+
+	private void unblock(Path current, int i) {
+		for (int j = 0; j < i; j++) {
+			this.blockedVertex[current.keys[j]] = false;
+		}
+		this.spur = -1;
+		this.numBlockedTargets = 0;
+	}
+
+	private static boolean sharesRoot(Path p, Path current, int i) {
+		for (int j = 0; j <= i; j++) {
+			if (p.keys[j] != current.keys[j])
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isBlocked(int from, int to) {
+		if (this.blockedVertex[to])
+			return true;
+		if (from != this.spur)
+			return false;
+		for (int b = 0; b < this.numBlockedTargets; b++) {
+			if (this.blockedTargets[b] == to)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Runs dijkstra from source until end is settled, respecting the mask, and puts the root of the current path
+	 * before the path found
+	 * @param source Key of the vertex at which the search starts
+	 * @param end Key of the destination vertex
+	 * @param root The path whose first rootLength + 1 vertex go before the path found, null if none
+	 * @param rootLength The position of source in root
+	 * @return The path, or null if end can't be reached
+	 */
+	private Path search(int source, int end, Path root, int rootLength) {
+		this.workspace.reset(this.graph.getNumKeys());
+		QueryWorkspace.Side search = this.workspace.forward.prepare();
+		IndexedMinHeap heap = search.heap();
+		this.search = search;
+
+		search.set(source, 0.0, -1);
+		heap.addOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			if (current == end) {
+				return join(root, rootLength, end);
+			}
+			double base = search.getValue(current);
+			for (int i = 0; i < this.graph.getDegree(current); i++) {
+				int to = this.graph.getTarget(current, i);
+				if (isBlocked(current, to))
+					continue;
+				double value = this.graph.getWeight(current, i, this.criteria) + base;
+				if (search.getValue(to) > value) {
+					search.set(to, value, current);
+					heap.addOrDecrease(to, value);
+				}
+			}
+		}
+		return null;
+	}
+
+	private Path join(Path root, int rootLength, int end) {
+		int[] spurPath = this.search.toPath(end);
+		int offset = (root == null) ? 0 : rootLength;
+		double base = (root == null) ? 0.0 : root.cost[rootLength];
+
+		int[] keys = new int[offset + spurPath.length];
+		double[] cost = new double[keys.length];
+		if (root != null) {
+			System.arraycopy(root.keys, 0, keys, 0, offset);
+			System.arraycopy(root.cost, 0, cost, 0, offset);
+		}
+		for (int m = 0; m < spurPath.length; m++) {
+			keys[offset + m] = spurPath[m];
+			cost[offset + m] = base + this.search.getValue(spurPath[m]);
+		}
+		return new Path(keys, cost, offset);
+	}
+}
@@ -0,0 +1,258 @@
+package Graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * ALT heuristic for A*: a few vertex are picked as landmarks and the cost from and to each of them is computed for
+ * every vertex. By the triangle inequality, d(v, t) is at least d(L, t) - d(L, v) and d(v, L) - d(t, L) for any
+ * landmark L, which gives a lower bound without coordinates.
+ *
+ * The bounds stay valid when weights go up, so the tables only have to be recomputed (see recompute) when weights
+ * go down, and that only needs one search per landmark. Vertex added after the tables were computed get an estimate
+ * of 0. The heuristic must be used with the graph it was built for.
+ */
+public final class Landmarks implements Heuristic {
+	/**
+	 * Picks each landmark as far as possible from the ones already picked
+	 */
+	public static final int FARTHEST = 0;
+
+	/**
+	 * Picks each landmark in the part of a shortest path tree that the landmarks already picked bound worst
+	 * (Goldberg and Werneck's avoid)
+	 */
+	public static final int AVOID = 1;
+
+	private final AbstractGraph graph;
+	private final int criteria;
+	private final int[] landmarks;
+	private final int n;
+
+	// cost from each landmark to each vertex, and from each vertex to each landmark, at [vertex * count + landmark]
+	private final double[] from;
+	private final double[] to;
+
+	/**
+	 * @Constructor: Picks the landmarks and computes their tables
+	 * @param graph The graph the heuristic is for
+	 * @param criteria The weight to use (distance or time)
+	 * @param count The number of landmarks, more give better estimates but take more memory and time per estimate
+	 * @param selection How the landmarks are picked (FARTHEST or AVOID)
+	 */
+	public Landmarks(AbstractGraph graph, int criteria, int count, int selection) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.n = graph.getNumKeys();
+		this.landmarks = new int[Math.max(0, Math.min(count, graph.getNumVertex()))];
+		this.from = new double[this.n * this.landmarks.length];
+		this.to = graph.isDirected() ? new double[this.from.length] : this.from;
+
+		double[] values = new double[this.n];
+		int[] previous = new int[this.n];
+		// for FARTHEST, the cost between each vertex and the closest landmark picked so far
+		double[] closest = new double[this.n];
+		Arrays.fill(closest, Double.POSITIVE_INFINITY);
+		Random random = new Random(this.n);
+
+		for (int l = 0; l < this.landmarks.length; l++) {
+			int landmark = -1;
+			if (l == 0) {
+				// start from the vertex farthest away from an arbitrary one
+				int first = 0;
+				while (!graph.exists(first))
+					first++;
+				tree(first, false, values, null);
+				landmark = farthest(values, -1);
+			} else if (selection == AVOID) {
+				landmark = avoid(randomVertex(random), l, values, previous);
+			}
+			if (landmark == -1 || isLandmark(landmark, l)) {
+				landmark = farthest(closest, l);
+			}
+			this.landmarks[l] = landmark;
+			compute(l, values);
+
+			for (int v = 0; v < this.n; v++) {
+				double cost = this.from[v * this.landmarks.length + l];
+				if (graph.isDirected())
+					cost = Math.min(cost, this.to[v * this.landmarks.length + l]);
+				closest[v] = Math.min(closest[v], cost);
+			}
+		}
+	}
+
+	/**
+	 * Gets the weight the tables were computed with
+	 * @return The criteria (distance or time)
+	 */
+	public int getCriteria() {
+		return this.criteria;
+	}
+
+	/**
+	 * Gets the landmarks
+	 * @return The IDs of the landmarks, in the order they were picked
+	 */
+	public String[] getLandmarks() {
+		String[] ids = new String[this.landmarks.length];
+		for (int l = 0; l < this.landmarks.length; l++) {
+			ids[l] = this.graph.getIdentifier(this.landmarks[l]);
+		}
+		return ids;
+	}
+
+	/**
+	 * Computes the tables again for the same landmarks, needed after weights are lowered
+	 */
+	public void recompute() {
+		double[] values = new double[this.n];
+		for (int l = 0; l < this.landmarks.length; l++) {
+			compute(l, values);
+		}
+	}
+
+	@Override
+	public double estimate(AbstractGraph graph, int key, int target) {
+		if (key >= this.n || target >= this.n)
+			return 0.0;
+		int count = this.landmarks.length;
+		int v = key * count;
+		int t = target * count;
+		double best = 0.0;
+		// a landmark that can't reach one of the vertex gives NaN or a valid infinity, never a wrong bound
+		for (int l = 0; l < count; l++) {
+			double forward = this.from[t + l] - this.from[v + l];
+			if (forward > best)
+				best = forward;
+			double backward = this.to[v + l] - this.to[t + l];
+			if (backward > best)
+				best = backward;
+		}
+		return best;
+	}
+
+	private void compute(int l, double[] values) {
+		int count = this.landmarks.length;
+		tree(this.landmarks[l], false, values, null);
+		for (int v = 0; v < this.n; v++) {
+			this.from[v * count + l] = values[v];
+		}
+		if (this.graph.isDirected()) {
+			tree(this.landmarks[l], true, values, null);
+			for (int v = 0; v < this.n; v++) {
+				this.to[v * count + l] = values[v];
+			}
+		}
+	}
+
+	/**
+	 * Runs dijkstra from source and copies the costs, and the predecessors if previous isn't null, out of the
+	 * workspace
+	 */
+	private void tree(int source, boolean reverse, double[] values, int[] previous) {
+		QueryWorkspace workspace = QueryWorkspace.local();
+		this.graph.shortestPathTree(source, this.criteria, reverse, workspace);
+		for (int v = 0; v < this.n; v++) {
+			values[v] = workspace.forward.getValue(v);
+			if (previous != null)
+				previous[v] = workspace.forward.getPrevious(v);
+		}
+	}
+
+	private boolean isLandmark(int key, int picked) {
+		for (int l = 0; l < picked; l++) {
+			if (this.landmarks[l] == key)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the vertex with the highest cost that isn't a landmark yet, the ones not reached first
+	 */
+	private int farthest(double[] cost, int picked) {
+		int best = -1;
+		for (int v = 0; v < this.n; v++) {
+			if (!this.graph.exists(v) || isLandmark(v, picked))
+				continue;
+			if (best == -1 || cost[v] > cost[best])
+				best = v;
+		}
+		return best;
+	}
+
+	private int randomVertex(Random random) {
+		int v;
+		do {
+			v = random.nextInt(this.n);
+		} while (!this.graph.exists(v));
+		return v;
+	}
+
+	/**
+	 * Grows a shortest path tree from root and weighs each vertex by how much the current landmarks underestimate
+	 * its cost from root. Going down from root, always into the heaviest subtree without a landmark, the leaf
+	 * reached is the next landmark
+	 * @return The key of the new landmark
+	 */
+	private int avoid(int root, int picked, double[] values, int[] previous) {
+		tree(root, false, values, previous);
+
+		// children of each vertex in the tree, as offsets into one array
+		int[] offsets = new int[this.n + 1];
+		for (int v = 0; v < this.n; v++) {
+			if (previous[v] != -1)
+				offsets[previous[v] + 1]++;
+		}
+		for (int v = 0; v < this.n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] children = new int[offsets[this.n]];
+		int[] fill = Arrays.copyOf(offsets, this.n);
+		for (int v = 0; v < this.n; v++) {
+			if (previous[v] != -1)
+				children[fill[previous[v]]++] = v;
+		}
+
+		// subtree sizes in post-order, 0 for the subtrees holding a landmark
+		double[] size = new double[this.n];
+		boolean[] covered = new boolean[this.n];
+		int[] stack = new int[this.n];
+		int[] next = new int[this.n];
+		int depth = 0;
+		stack[depth++] = root;
+		next[root] = offsets[root];
+		while (depth > 0) {
+			int v = stack[depth - 1];
+			if (next[v] < offsets[v + 1]) {
+				int child = children[next[v]++];
+				next[child] = offsets[child];
+				stack[depth++] = child;
+				continue;
+			}
+			depth--;
+			covered[v] |= isLandmark(v, picked);
+			if (!covered[v])
+				size[v] += values[v] - estimate(this.graph, root, v);
+			else
+				size[v] = 0.0;
+			if (previous[v] != -1) {
+				covered[previous[v]] |= covered[v];
+				size[previous[v]] += size[v];
+			}
+		}
+
+		int v = root;
+		while (true) {
+			int heaviest = -1;
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				if (heaviest == -1 || size[children[i]] > size[heaviest])
+					heaviest = children[i];
+			}
+			if (heaviest == -1 || size[heaviest] <= 0.0)
+				return covered[v] ? -1 : v;
+			v = heaviest;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only graph over a file written by AbstractGraph.write, queried in place through memory-mapped buffers. Opening
+ * one only maps the sections of the file, nothing is read or copied until a query touches it, so even a large graph
+ * opens at once and the pages are shared by every process that maps the same file.
+ *
+ * The file holds the sections of an OffHeapGraph one after the other, each starting on a multiple of 8 bytes.
+ */
+public class MappedGraph extends OffHeapGraph {
+	/**
+	 * @Constructor: Maps a graph file. The file mustn't change while the graph is in use
+	 * @param file The file, written by AbstractGraph.write
+	 * @throws IOException if the file can't be read or isn't a graph file
+	 */
+	public MappedGraph(File file) throws IOException {
+		super(new FileSections(file, false));
+	}
+
+	/**
+	 * Writes graph to file in the format read by the constructor
+	 * @param graph The graph to write
+	 * @param file The file, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	static void write(AbstractGraph graph, File file) throws IOException {
+		FileSections out = new FileSections(file, true);
+		try {
+			OffHeapGraph.write(graph, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Maps the sections of a file one after the other; the mappings stay valid once the file is closed
+	 */
+	private static final class FileSections implements Sections {
+		private final File file;
+		private final RandomAccessFile raf;
+		private final FileChannel channel;
+		private final boolean write;
+		private long position;
+
+		FileSections(File file, boolean write) throws IOException {
+			this.file = file;
+			this.raf = new RandomAccessFile(file, write ? "rw" : "r");
+			this.channel = this.raf.getChannel();
+			this.write = write;
+			if (write)
+				this.raf.setLength(0);
+		}
+
+		@Override
+		public ByteBuffer next(long size) throws IOException {
+			if (!this.write && this.position + size > this.channel.size())
+				throw new IOException(this.file + " is truncated");
+			FileChannel.MapMode mode = this.write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+			ByteBuffer buffer = this.channel.map(mode, this.position, size);
+			this.position += (size + 7) & ~7L;
+			return buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.raf.close();
+		}
+
+		@Override
+		public String toString() {
+			return this.file.toString();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from the key of a neighbour to the position of its edge in a vertex's adjacency arrays, so that
+ * finding, and so removing, the edge to a neighbour takes constant expected time. Open addressing with linear
+ * probing over two int arrays, kept at most half full; removals shift the following entries back instead of
+ * leaving markers.
+ */
+final class NeighbourIndex {
+	private static final int EMPTY = -1;
+
+	private int[] neighbours;
+	private int[] positions;
+	private int size;
+
+	/**
+	 * @Constructor: Creates the index of an adjacency
+	 * @param keys The keys of the neighbours, which must all be different
+	 * @param count The number of neighbours, the first count of keys
+	 */
+	NeighbourIndex(int[] keys, int count) {
+		allocate(Math.max(16, Integer.highestOneBit(count * 2) * 2));
+		for (int i = 0; i < count; i++) {
+			put(keys[i], i);
+		}
+	}
+
+	/**
+	 * Gets the position of the edge to a neighbour
+	 * @param neighbour The key of the neighbour
+	 * @return The position, -1 if there's no edge to the neighbour
+	 */
+	int get(int neighbour) {
+		int mask = this.neighbours.length - 1;
+		for (int slot = slot(neighbour, mask); this.neighbours[slot] != EMPTY; slot = (slot + 1) & mask) {
+			if (this.neighbours[slot] == neighbour)
+				return this.positions[slot];
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets the position of the edge to a neighbour, adding the neighbour if it isn't there
+	 * @param neighbour The key of the neighbour
+	 * @param position The position of its edge
+	 */
+	void put(int neighbour, int position) {
+		if ((this.size + 1) * 2 > this.neighbours.length)
+			rehash(this.neighbours.length * 2);
+		int mask = this.neighbours.length - 1;
+		int slot = slot(neighbour, mask);
+		while (this.neighbours[slot] != EMPTY && this.neighbours[slot] != neighbour) {
+			slot = (slot + 1) & mask;
+		}
+		if (this.neighbours[slot] == EMPTY) {
+			this.neighbours[slot] = neighbour;
+			this.size++;
+		}
+		this.positions[slot] = position;
+	}
+
+	/**
+	 * Removes a neighbour
+	 * @param neighbour The key of the neighbour
+	 */
+	void remove(int neighbour) {
+		int mask = this.neighbours.length - 1;
+		int slot = slot(neighbour, mask);
+		while (this.neighbours[slot] != neighbour) {
+			if (this.neighbours[slot] == EMPTY)
+				return;
+			slot = (slot + 1) & mask;
+		}
+		this.size--;
+		// moves back every following entry that the gap would hide from its probe sequence
+		int gap = slot;
+		for (slot = (slot + 1) & mask; this.neighbours[slot] != EMPTY; slot = (slot + 1) & mask) {
+			int home = slot(this.neighbours[slot], mask);
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				this.neighbours[gap] = this.neighbours[slot];
+				this.positions[gap] = this.positions[slot];
+				gap = slot;
+			}
+		}
+		this.neighbours[gap] = EMPTY;
+	}
+
+	private static int slot(int neighbour, int mask) {
+		int h = neighbour * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private void allocate(int capacity) {
+		this.neighbours = new int[capacity];
+		this.positions = new int[capacity];
+		Arrays.fill(this.neighbours, EMPTY);
+		this.size = 0;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldNeighbours = this.neighbours;
+		int[] oldPositions = this.positions;
+		allocate(capacity);
+		for (int slot = 0; slot < oldNeighbours.length; slot++) {
+			if (oldNeighbours[slot] != EMPTY)
+				put(oldNeighbours[slot], oldPositions[slot]);
+		}
+	}
+}
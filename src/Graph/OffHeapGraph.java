@@ -0,0 +1,447 @@
+package Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Read-only graph kept outside of the Java heap: its identifiers, adjacency and weights live in a few direct or
+ * memory-mapped ByteBuffers instead of an object per vertex and edge, so the garbage collector has next to nothing
+ * to scan however large the graph is. Created by AbstractGraph.toOffHeap, in direct buffers, or by MappedGraph over
+ * a file. Direct buffers count against -XX:MaxDirectMemorySize, which is the size of the heap unless it's set.
+ *
+ * The graph is stored in sections, each a buffer of its own, holding the same compressed sparse rows as a
+ * FrozenGraph in little-endian order:
+ * - a header: magic, version, directed, number of vertex, of outgoing edges, of incoming edges, of criteria and of
+ *   hash slots (8 ints), then the length of the identifiers and of the criteria names (2 longs)
+ * - the names of the criteria, each as an int length followed by its UTF-8 bytes
+ * - the identifiers: the offset of each one in the bytes that follow (numVertex + 1 ints) and their UTF-8 bytes
+ * - an open addressing table from the hash of an identifier to its key, -1 for empty slots (numSlots ints)
+ * - the coordinates, all the xs and then all the ys (numVertex doubles each)
+ * - the outgoing edges: offsets (numVertex + 1 ints), targets (numEdges ints) and one column of numEdges doubles
+ *   per criteria
+ * - for directed graphs only, the incoming edges in the same way
+ *
+ * Nothing changes after construction, so the graph can be queried from several threads at once.
+ */
+public class OffHeapGraph extends AbstractGraph {
+	static final int MAGIC = 0x4A475246;
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 48;
+	private static final int EMPTY = -1;
+
+	private final boolean directed;
+	private final int numVertex;
+	private final String[] criteria;
+	private final IntBuffer identifierOffsets;
+	private final ByteBuffer identifierBytes;
+	private final IntBuffer slots;
+	private final int slotMask;
+	private final DoubleBuffer xs;
+	private final DoubleBuffer ys;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final DoubleBuffer[] weights;
+	private final IntBuffer inOffsets;
+	private final IntBuffer sources;
+	private final DoubleBuffer[] inWeights;
+
+	/**
+	 * @Constructor: Creates a graph over stored sections, closing them afterwards
+	 * @param in The sections, in the order of the layout
+	 * @throws IOException if the sections can't be read or don't hold a graph
+	 */
+	OffHeapGraph(Sections in) throws IOException {
+		try {
+			ByteBuffer header = in.next(HEADER_SIZE);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException(in + " isn't a graph");
+			if (header.getInt(4) != VERSION)
+				throw new IOException(in + " has version " + header.getInt(4) + ", expected " + VERSION);
+			this.directed = header.getInt(8) != 0;
+			this.numVertex = header.getInt(12);
+			int numEdges = header.getInt(16);
+			int numInEdges = header.getInt(20);
+			int numCriteria = header.getInt(24);
+			int numSlots = header.getInt(28);
+			long numIdentifierBytes = header.getLong(32);
+			long numCriteriaBytes = header.getLong(40);
+
+			ByteBuffer names = in.next(numCriteriaBytes);
+			this.criteria = new String[numCriteria];
+			for (int c = 0, position = 0; c < numCriteria; c++) {
+				int length = names.getInt(position);
+				this.criteria[c] = decode(names, position + 4, length);
+				position += 4 + length;
+			}
+
+			this.identifierOffsets = in.next(4L * (this.numVertex + 1)).asIntBuffer();
+			this.identifierBytes = in.next(numIdentifierBytes);
+			this.slots = in.next(4L * numSlots).asIntBuffer();
+			this.slotMask = numSlots - 1;
+			this.xs = in.next(8L * this.numVertex).asDoubleBuffer();
+			this.ys = in.next(8L * this.numVertex).asDoubleBuffer();
+
+			this.offsets = in.next(4L * (this.numVertex + 1)).asIntBuffer();
+			this.targets = in.next(4L * numEdges).asIntBuffer();
+			this.weights = new DoubleBuffer[numCriteria];
+			for (int c = 0; c < numCriteria; c++) {
+				this.weights[c] = in.next(8L * numEdges).asDoubleBuffer();
+			}
+			if (!this.directed) {
+				this.inOffsets = this.offsets;
+				this.sources = this.targets;
+				this.inWeights = this.weights;
+				return;
+			}
+			this.inOffsets = in.next(4L * (this.numVertex + 1)).asIntBuffer();
+			this.sources = in.next(4L * numInEdges).asIntBuffer();
+			this.inWeights = new DoubleBuffer[numCriteria];
+			for (int c = 0; c < numCriteria; c++) {
+				this.inWeights[c] = in.next(8L * numInEdges).asDoubleBuffer();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Copies graph into direct buffers
+	 * @param graph The graph to copy
+	 * @return The copy
+	 */
+	static OffHeapGraph copyOf(AbstractGraph graph) {
+		DirectSections sections = new DirectSections();
+		try {
+			write(graph, sections);
+			sections.rewind();
+			return new OffHeapGraph(sections);
+		} catch (IOException e) {
+			// direct buffers can't fail to be read, only the graph can be too large for them
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes graph into sections, in the layout read by the constructor. The keys are renumbered so that there are
+	 * no gaps left by removed vertex, keeping their order, like Graph.freeze does
+	 * @param graph The graph to write
+	 * @param out The sections to write to
+	 * @throws IOException if the sections can't be written or the graph is too large for them
+	 */
+	static void write(AbstractGraph graph, Sections out) throws IOException {
+		int[] renumbered = new int[graph.getNumKeys()];
+		int[] original = new int[graph.getNumKeys()];
+		int numVertex = 0;
+		long numEdges = 0;
+		long numInEdges = 0;
+		for (int key = 0; key < graph.getNumKeys(); key++) {
+			if (!graph.exists(key)) {
+				renumbered[key] = -1;
+				continue;
+			}
+			original[numVertex] = key;
+			renumbered[key] = numVertex++;
+			numEdges += graph.getDegree(key);
+			numInEdges += graph.getInDegree(key);
+		}
+		boolean directed = graph.isDirected();
+		if (!directed)
+			numInEdges = 0;
+
+		byte[][] identifiers = new byte[numVertex][];
+		long numIdentifierBytes = 0;
+		int numSlots = Math.max(16, Integer.highestOneBit(Math.max(1, numVertex) * 2) * 2);
+		int[] slots = new int[numSlots];
+		Arrays.fill(slots, EMPTY);
+		for (int k = 0; k < numVertex; k++) {
+			String id = graph.getIdentifier(original[k]);
+			identifiers[k] = id.getBytes(StandardCharsets.UTF_8);
+			numIdentifierBytes += identifiers[k].length;
+			int slot = slot(id, numSlots - 1);
+			while (slots[slot] != EMPTY) {
+				slot = (slot + 1) & (numSlots - 1);
+			}
+			slots[slot] = k;
+		}
+		byte[][] names = new byte[graph.getNumCriteria()][];
+		long numCriteriaBytes = 0;
+		for (int c = 0; c < names.length; c++) {
+			names[c] = graph.getCriteriaName(c).getBytes(StandardCharsets.UTF_8);
+			numCriteriaBytes += 4 + names[c].length;
+		}
+		// every section must fit in one buffer
+		long largest = Math.max(8L * Math.max(numEdges, numInEdges), numIdentifierBytes);
+		if (largest > Integer.MAX_VALUE)
+			throw new IOException("The graph is too large for the storage format");
+
+		ByteBuffer section = out.next(HEADER_SIZE);
+		section.putInt(MAGIC);
+		section.putInt(VERSION);
+		section.putInt(directed ? 1 : 0);
+		section.putInt(numVertex);
+		section.putInt((int) numEdges);
+		section.putInt((int) numInEdges);
+		section.putInt(names.length);
+		section.putInt(numSlots);
+		section.putLong(numIdentifierBytes);
+		section.putLong(numCriteriaBytes);
+
+		section = out.next(numCriteriaBytes);
+		for (byte[] name : names) {
+			section.putInt(name.length);
+			section.put(name);
+		}
+		section = out.next(4L * (numVertex + 1));
+		int offset = 0;
+		section.putInt(offset);
+		for (byte[] id : identifiers) {
+			offset += id.length;
+			section.putInt(offset);
+		}
+		section = out.next(numIdentifierBytes);
+		for (byte[] id : identifiers) {
+			section.put(id);
+		}
+		section = out.next(4L * numSlots);
+		for (int slot : slots) {
+			section.putInt(slot);
+		}
+		section = out.next(8L * numVertex);
+		for (int k = 0; k < numVertex; k++) {
+			section.putDouble(graph.getX(original[k]));
+		}
+		section = out.next(8L * numVertex);
+		for (int k = 0; k < numVertex; k++) {
+			section.putDouble(graph.getY(original[k]));
+		}
+
+		writeEdges(graph, out, original, renumbered, numVertex, (int) numEdges, false);
+		if (directed)
+			writeEdges(graph, out, original, renumbered, numVertex, (int) numInEdges, true);
+	}
+
+	/**
+	 * Writes the offsets, the neighbours and the weight columns of the outgoing or incoming edges
+	 */
+	private static void writeEdges(AbstractGraph graph, Sections out, int[] original, int[] renumbered,
+			int numVertex, int numEdges, boolean incoming) throws IOException {
+		ByteBuffer section = out.next(4L * (numVertex + 1));
+		int offset = 0;
+		section.putInt(offset);
+		for (int k = 0; k < numVertex; k++) {
+			offset += incoming ? graph.getInDegree(original[k]) : graph.getDegree(original[k]);
+			section.putInt(offset);
+		}
+		section = out.next(4L * numEdges);
+		for (int k = 0; k < numVertex; k++) {
+			int key = original[k];
+			int degree = incoming ? graph.getInDegree(key) : graph.getDegree(key);
+			for (int i = 0; i < degree; i++) {
+				section.putInt(renumbered[incoming ? graph.getSource(key, i) : graph.getTarget(key, i)]);
+			}
+		}
+		for (int c = 0; c < graph.getNumCriteria(); c++) {
+			section = out.next(8L * numEdges);
+			for (int k = 0; k < numVertex; k++) {
+				int key = original[k];
+				int degree = incoming ? graph.getInDegree(key) : graph.getDegree(key);
+				for (int i = 0; i < degree; i++) {
+					section.putDouble(incoming ? graph.getInWeight(key, i, c) : graph.getWeight(key, i, c));
+				}
+			}
+		}
+	}
+
+	public boolean isDirected() {
+		return this.directed;
+	}
+
+	public int getNumVertex() {
+		return this.numVertex;
+	}
+
+	@Override
+	public int getNumCriteria() {
+		return this.criteria.length;
+	}
+
+	@Override
+	public String getCriteriaName(int criteria) {
+		return (criteria >= 0 && criteria < this.criteria.length) ? this.criteria[criteria] : null;
+	}
+
+	/**
+	 * Gets the number of edges stored. Each edge of an undirected graph is stored once for each of its vertex
+	 * @return The number of stored edges
+	 */
+	public int getNumEdges() {
+		return this.targets.capacity();
+	}
+
+	int getNumKeys() {
+		return this.numVertex;
+	}
+
+	int getKey(String id) {
+		if (id == null)
+			return -1;
+		byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+		for (int slot = slot(id, this.slotMask); this.slots.get(slot) != EMPTY; slot = (slot + 1) & this.slotMask) {
+			int key = this.slots.get(slot);
+			if (identifierEquals(key, bytes))
+				return key;
+		}
+		return -1;
+	}
+
+	String getIdentifier(int key) {
+		int start = this.identifierOffsets.get(key);
+		return decode(this.identifierBytes, start, this.identifierOffsets.get(key + 1) - start);
+	}
+
+	/**
+	 * Checks if a vertex has the passed key without decoding its ID. The keys are renumbered without gaps when the
+	 * graph is stored, so every key below the number of vertex has one
+	 */
+	@Override
+	boolean exists(int key) {
+		return key >= 0 && key < this.numVertex;
+	}
+
+	int getDegree(int key) {
+		return this.offsets.get(key + 1) - this.offsets.get(key);
+	}
+
+	int getTarget(int key, int i) {
+		return this.targets.get(this.offsets.get(key) + i);
+	}
+
+	double getWeight(int key, int i, int criteria) {
+		return this.weights[criteria].get(this.offsets.get(key) + i);
+	}
+
+	public double getX(int key) {
+		return this.xs.get(key);
+	}
+
+	public double getY(int key) {
+		return this.ys.get(key);
+	}
+
+	int getInDegree(int key) {
+		return this.inOffsets.get(key + 1) - this.inOffsets.get(key);
+	}
+
+	int getSource(int key, int i) {
+		return this.sources.get(this.inOffsets.get(key) + i);
+	}
+
+	double getInWeight(int key, int i, int criteria) {
+		return this.inWeights[criteria].get(this.inOffsets.get(key) + i);
+	}
+
+	/**
+	 * Returns a string containing the edges and all of their connections
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int key = 0; key < this.numVertex; key++) {
+			builder.append(getIdentifier(key) + ": ");
+			for (int i = 0; i < getDegree(key); i++) {
+				builder.append(getIdentifier(getTarget(key, i)) + ", ");
+			}
+			builder.append("\b\b\n");
+		}
+		return builder.toString();
+	}
+
+	private boolean identifierEquals(int key, byte[] bytes) {
+		int start = this.identifierOffsets.get(key);
+		if (this.identifierOffsets.get(key + 1) - start != bytes.length)
+			return false;
+		for (int i = 0; i < bytes.length; i++) {
+			if (this.identifierBytes.get(start + i) != bytes[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static String decode(ByteBuffer buffer, int start, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The home slot of an identifier; String.hashCode is the same in every JVM, so it can be stored in a file
+	 */
+	private static int slot(String id, int mask) {
+		int h = id.hashCode() * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Where the sections of a graph are stored: gives the buffer of each section in turn, little-endian and
+	 * positioned at its start, to be written or read
+	 */
+	interface Sections {
+		/**
+		 * Gets the buffer of the next section
+		 * @param size The size of the section, in bytes
+		 * @return The buffer
+		 * @throws IOException if the section can't be stored or read
+		 */
+		ByteBuffer next(long size) throws IOException;
+
+		/**
+		 * Releases what the sections need while they're being read or written; the buffers stay valid
+		 * @throws IOException if the sections can't be released
+		 */
+		void close() throws IOException;
+	}
+
+	/**
+	 * Sections in direct buffers allocated as they're written, then given back in the same order to be read
+	 */
+	private static final class DirectSections implements Sections {
+		private final ArrayList<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+		private int next;
+
+		@Override
+		public ByteBuffer next(long size) {
+			if (this.next < this.buffers.size()) {
+				ByteBuffer buffer = this.buffers.get(this.next++).duplicate();
+				buffer.clear();
+				return buffer.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+			this.buffers.add(buffer);
+			this.next++;
+			return buffer;
+		}
+
+		/**
+		 * Goes back to the first section, to read the sections written
+		 */
+		void rewind() {
+			this.next = 0;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public String toString() {
+			return "Direct memory";
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Multi-criteria label-setting search (Martins) for the Pareto front between two vertex: every path for which no
+ * other path is at least as good in all criteria and better in one. A label is the cost vector of one path to a
+ * vertex; each vertex keeps the labels that no other label of it dominates, and the labels are expanded in
+ * lexicographic order of cost plus a lower bound of the cost left, so a label is never dominated once expanded.
+ *
+ * The lower bounds come from one backwards dijkstra per criteria from the end. A label is dropped when its cost
+ * plus the bounds is already dominated by a path found to the end, or when the end can't be reached from it. The
+ * labels live in flat arrays, criteria by criteria, and are referred to by their index. An instance belongs to a
+ * single query.
+ */
+final class ParetoSearch {
+	private final AbstractGraph graph;
+	private final int[] criteria;
+	private final int k;
+	private final int n;
+	private final QueryWorkspace workspace;
+
+	// lower bound of the cost from each vertex to the end, at [vertex * k + criteria]
+	private double[] bounds;
+
+	private int numLabels;
+	private int[] labelVertex = new int[64];
+	private int[] labelParent = new int[64];
+	private double[] labelCost;
+	private boolean[] labelDead = new boolean[64];
+
+	// labels not dominated at each vertex, created lazily and kept by the workspace
+	private int[][] bags;
+	private int[] bagSize;
+
+	// labels waiting to be expanded, a binary heap ordered by cost plus bound
+	private int[] heap = new int[64];
+	private int heapSize;
+
+	/**
+	 * @Constructor: Creates the state for one query
+	 * @param graph The graph to search
+	 * @param criteria The weights to optimise, at least one
+	 * @param workspace The search state that holds the lower bounds and the labels of each vertex
+	 */
+	ParetoSearch(AbstractGraph graph, int[] criteria, QueryWorkspace workspace) {
+		this.graph = graph;
+		this.criteria = criteria;
+		this.k = criteria.length;
+		this.n = graph.getNumKeys();
+		this.workspace = workspace;
+		this.labelCost = new double[64 * this.k];
+	}
+
+	/**
+	 * Gets the Pareto front of the paths from start to end
+	 * @param start Key of the vertex at which to start
+	 * @param end Key of the destination vertex
+	 * @return The keys of the vertex of each path, in lexicographic order of their costs
+	 */
+	ArrayList<int[]> find(int start, int end) {
+		computeBounds(end);
+		this.bags = this.workspace.bags();
+		this.bagSize = this.workspace.bagSizes();
+		try {
+			return search(start, end);
+		} finally {
+			// every vertex with labels has one of them in labelVertex
+			for (int label = 0; label < this.numLabels; label++) {
+				this.bagSize[this.labelVertex[label]] = 0;
+			}
+		}
+	}
+
+	private ArrayList<int[]> search(int start, int end) {
+		ArrayList<int[]> front = new ArrayList<int[]>();
+		if (this.bounds[start * this.k] == Double.POSITIVE_INFINITY)
+			return front;
+
+		double[] cost = new double[this.k];
+		push(newLabel(start, -1, cost));
+		while (this.heapSize > 0) {
+			int label = pop();
+			if (this.labelDead[label])
+				continue;
+			int v = this.labelVertex[label];
+			if (v == end) {
+				front.add(toPath(label));
+				continue;
+			}
+			// the end may have got a label that dominates this one since it was queued
+			if (dominatedAtEnd(this.labelCost, label * this.k, v, end))
+				continue;
+
+			for (int i = 0; i < this.graph.getDegree(v); i++) {
+				int to = this.graph.getTarget(v, i);
+				if (this.bounds[to * this.k] == Double.POSITIVE_INFINITY)
+					continue;
+				for (int c = 0; c < this.k; c++) {
+					cost[c] = this.labelCost[label * this.k + c] + this.graph.getWeight(v, i, this.criteria[c]);
+				}
+				if (dominatedAtEnd(cost, 0, to, end) || !addToBag(to, cost))
+					continue;
+				push(newLabel(to, label, cost));
+			}
+		}
+		return front;
+	}
+
+	private void computeBounds(int end) {
+		this.bounds = this.workspace.bounds(this.n * this.k);
+		for (int c = 0; c < this.k; c++) {
+			this.graph.shortestPathTree(end, this.criteria[c], true, this.workspace);
+			for (int v = 0; v < this.n; v++) {
+				this.bounds[v * this.k + c] = this.workspace.forward.getValue(v);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a label at the end dominates the cost at offset plus the bounds of v
+	 */
+	private boolean dominatedAtEnd(double[] cost, int offset, int v, int end) {
+		int[] bag = this.bags[end];
+		for (int b = 0; b < this.bagSize[end]; b++) {
+			int other = bag[b];
+			boolean dominates = true;
+			for (int c = 0; c < this.k && dominates; c++) {
+				dominates = this.labelCost[other * this.k + c] <= cost[offset + c] + this.bounds[v * this.k + c];
+			}
+			if (dominates)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks cost against the labels of v, removing the ones it dominates
+	 * @return false if a label of v dominates or equals cost, in which case it isn't added
+	 */
+	private boolean addToBag(int v, double[] cost) {
+		int[] bag = this.bags[v];
+		int kept = 0;
+		for (int b = 0; b < this.bagSize[v]; b++) {
+			int other = bag[b];
+			int compare = compare(other, cost);
+			if (compare <= 0) {
+				return false;
+			}
+			if (compare == 1) {
+				this.labelDead[other] = true;
+			} else {
+				bag[kept++] = other;
+			}
+		}
+		this.bagSize[v] = kept;
+		return true;
+	}
+
+	/**
+	 * Compares a label with a cost vector
+	 * @return -1 if the label dominates cost, 0 if they're equal, 1 if cost dominates the label, 2 otherwise
+	 */
+	private int compare(int label, double[] cost) {
+		boolean better = false;
+		boolean worse = false;
+		for (int c = 0; c < this.k; c++) {
+			double value = this.labelCost[label * this.k + c];
+			if (value < cost[c])
+				better = true;
+			else if (value > cost[c])
+				worse = true;
+		}
+		if (better)
+			return worse ? 2 : -1;
+		return worse ? 1 : 0;
+	}
+
+	private int newLabel(int v, int parent, double[] cost) {
+		if (this.numLabels == this.labelVertex.length) {
+			int capacity = this.numLabels * 2;
+			this.labelVertex = Arrays.copyOf(this.labelVertex, capacity);
+			this.labelParent = Arrays.copyOf(this.labelParent, capacity);
+			this.labelCost = Arrays.copyOf(this.labelCost, capacity * this.k);
+			this.labelDead = Arrays.copyOf(this.labelDead, capacity);
+		}
+		int label = this.numLabels++;
+		this.labelVertex[label] = v;
+		this.labelParent[label] = parent;
+		System.arraycopy(cost, 0, this.labelCost, label * this.k, this.k);
+
+		if (this.bags[v] == null)
+			this.bags[v] = new int[4];
+		else if (this.bagSize[v] == this.bags[v].length)
+			this.bags[v] = Arrays.copyOf(this.bags[v], this.bagSize[v] * 2);
+		this.bags[v][this.bagSize[v]++] = label;
+		return label;
+	}
+
+	private int[] toPath(int label) {
+		int length = 0;
+		for (int l = label; l != -1; l = this.labelParent[l]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int l = label; l != -1; l = this.labelParent[l]) {
+			path[--length] = this.labelVertex[l];
+		}
+		return path;
+	}
+
+	/**
+	 * Lexicographic order of cost plus bound
+	 */
+	private boolean less(int a, int b) {
+		int va = this.labelVertex[a];
+		int vb = this.labelVertex[b];
+		for (int c = 0; c < this.k; c++) {
+			double x = this.labelCost[a * this.k + c] + this.bounds[va * this.k + c];
+			double y = this.labelCost[b * this.k + c] + this.bounds[vb * this.k + c];
+			if (x != y)
+				return x < y;
+		}
+		return false;
+	}
+
+	private void push(int label) {
+		if (this.heapSize == this.heap.length)
+			this.heap = Arrays.copyOf(this.heap, this.heapSize * 2);
+		int i = this.heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!less(label, this.heap[parent]))
+				break;
+			this.heap[i] = this.heap[parent];
+			i = parent;
+		}
+		this.heap[i] = label;
+	}
+
+	private int pop() {
+		int top = this.heap[0];
+		int last = this.heap[--this.heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= this.heapSize)
+				break;
+			if (child + 1 < this.heapSize && less(this.heap[child + 1], this.heap[child]))
+				child++;
+			if (!less(this.heap[child], last))
+				break;
+			this.heap[i] = this.heap[child];
+			i = child;
+		}
+		this.heap[i] = last;
+		return top;
+	}
+}
@@ -0,0 +1,234 @@
+package Graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Search state that is reused between queries, so that a query doesn't allocate arrays the size of the graph.
+ * Every search of AbstractGraph has an overload that takes one; the ones that don't use the workspace of the
+ * calling thread (see local). The searches from many sources run on several threads and use the workspace of
+ * each of them, as does the precomputation of Landmarks. The arrays grow to the largest graph searched and are
+ * never cleared: a query only increments a generation counter, and an entry stamped with an older generation
+ * counts as not reached.
+ *
+ * A workspace must only be used by one query at a time, so it shouldn't be shared between threads.
+ */
+public final class QueryWorkspace {
+	private static final ThreadLocal<QueryWorkspace> LOCAL = new ThreadLocal<QueryWorkspace>() {
+		@Override
+		protected QueryWorkspace initialValue() {
+			return new QueryWorkspace();
+		}
+	};
+
+	/**
+	 * Costs and predecessors of the forward search, from the start
+	 */
+	final Side forward = new Side();
+
+	/**
+	 * Costs and successors of the backward search, from the end, or anything else a search needs per vertex
+	 */
+	final Side backward = new Side();
+
+	private int capacity;
+	private int generation;
+
+	// arrays of the searches that keep more per vertex than a side holds, allocated by their first query. They
+	// aren't stamped: the search that uses one sets the entries it reads, or leaves them as it found them
+	private double[] bounds;
+	private int[][] bags;
+	private int[] bagSizes;
+	private AtomicLongArray atomicValues;
+	private int[] predecessors;
+	private int[] rounds;
+	private long[] settledIn;
+
+	/**
+	 * @Constructor: Creates an empty workspace, which grows on its first query
+	 */
+	public QueryWorkspace() {
+	}
+
+	/**
+	 * Gets the workspace of the calling thread, created on the first call
+	 * @return The workspace
+	 */
+	public static QueryWorkspace local() {
+		return LOCAL.get();
+	}
+
+	/**
+	 * Starts a new query, forgetting everything the previous one left
+	 * @param n The number of vertex keys of the graph searched
+	 * @return This workspace
+	 */
+	QueryWorkspace reset(int n) {
+		this.capacity = Math.max(this.capacity, n);
+		if (++this.generation == Integer.MAX_VALUE) {
+			this.forward.clearStamps();
+			this.backward.clearStamps();
+			this.generation = 1;
+		}
+		this.forward.clearHeap();
+		this.backward.clearHeap();
+		return this;
+	}
+
+	/**
+	 * Gets the lower bounds of the costs left for paretoPaths, which writes all of them before reading any
+	 * @param size The number of bounds
+	 * @return The array, with at least size entries
+	 */
+	double[] bounds(int size) {
+		if (this.bounds == null || this.bounds.length < size)
+			this.bounds = new double[size];
+		return this.bounds;
+	}
+
+	/**
+	 * Gets the labels kept at each vertex by paretoPaths. The arrays of the labels are kept for the next query
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	int[][] bags() {
+		if (this.bags == null || this.bags.length < this.capacity)
+			this.bags = (this.bags == null) ? new int[this.capacity][] : Arrays.copyOf(this.bags, this.capacity);
+		return this.bags;
+	}
+
+	/**
+	 * Gets the number of labels at each vertex for paretoPaths, which sets them back to 0 when it's done
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	int[] bagSizes() {
+		if (this.bagSizes == null || this.bagSizes.length < this.capacity)
+			this.bagSizes = new int[this.capacity];
+		return this.bagSizes;
+	}
+
+	/**
+	 * Gets the costs of deltaStepping, which its threads read and lower at the same time
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	AtomicLongArray atomicValues() {
+		if (this.atomicValues == null || this.atomicValues.length() < this.capacity)
+			this.atomicValues = new AtomicLongArray(this.capacity);
+		return this.atomicValues;
+	}
+
+	/**
+	 * Gets the predecessors of deltaStepping
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	int[] predecessors() {
+		if (this.predecessors == null || this.predecessors.length < this.capacity)
+			this.predecessors = new int[this.capacity];
+		return this.predecessors;
+	}
+
+	/**
+	 * Gets the round in which deltaStepping last saw each vertex
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	int[] rounds() {
+		if (this.rounds == null || this.rounds.length < this.capacity)
+			this.rounds = new int[this.capacity];
+		return this.rounds;
+	}
+
+	/**
+	 * Gets the bucket in which deltaStepping last settled each vertex
+	 * @return The array, with at least as many entries as the keys of the current query
+	 */
+	long[] settledIn() {
+		if (this.settledIn == null || this.settledIn.length < this.capacity)
+			this.settledIn = new long[this.capacity];
+		return this.settledIn;
+	}
+
+	/**
+	 * Value, predecessor and heap of one search direction. The arrays are only allocated once a search uses them
+	 */
+	final class Side {
+		private double[] values;
+		private int[] previous;
+		private int[] stamp;
+		private IndexedMinHeap heap;
+
+		/**
+		 * Makes sure the arrays can hold the keys of the current query
+		 * @return This side
+		 */
+		Side prepare() {
+			if (this.stamp == null || this.stamp.length < capacity) {
+				this.values = new double[capacity];
+				this.previous = new int[capacity];
+				this.stamp = new int[capacity];
+				if (this.heap == null)
+					this.heap = new IndexedMinHeap(capacity);
+				else
+					this.heap.ensureCapacity(capacity);
+			}
+			return this;
+		}
+
+		IndexedMinHeap heap() {
+			return this.heap;
+		}
+
+		boolean isReached(int key) {
+			return this.stamp[key] == generation;
+		}
+
+		/**
+		 * Gets the value of a vertex
+		 * @param key The key of the vertex
+		 * @return The value, Double.POSITIVE_INFINITY if it wasn't set in this query
+		 */
+		double getValue(int key) {
+			return (this.stamp[key] == generation) ? this.values[key] : Double.POSITIVE_INFINITY;
+		}
+
+		/**
+		 * Gets the predecessor of a vertex
+		 * @param key The key of the vertex
+		 * @return The key of the predecessor, -1 if there's none or it wasn't set in this query
+		 */
+		int getPrevious(int key) {
+			return (this.stamp[key] == generation) ? this.previous[key] : -1;
+		}
+
+		void set(int key, double value, int previous) {
+			this.stamp[key] = generation;
+			this.values[key] = value;
+			this.previous[key] = previous;
+		}
+
+		/**
+		 * Follows the predecessors back from end
+		 * @param end Key of the last vertex of the path
+		 * @return The keys of the vertex in the path, from the first one to end
+		 */
+		int[] toPath(int end) {
+			int length = 0;
+			for (int key = end; key != -1; key = getPrevious(key)) {
+				length++;
+			}
+			int[] path = new int[length];
+			for (int key = end; key != -1; key = getPrevious(key)) {
+				path[--length] = key;
+			}
+			return path;
+		}
+
+		private void clearStamps() {
+			if (this.stamp != null)
+				Arrays.fill(this.stamp, 0);
+		}
+
+		private void clearHeap() {
+			if (this.heap != null)
+				this.heap.clear();
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths from one vertex of a Graph to all the others, kept up to date as the edges of the graph change,
+ * created by Graph.shortestPathTree. A change only repairs the part of the tree it affects, in the manner of
+ * Ramalingam and Reps: a lower weight or a new edge starts a dijkstra from the vertex it improves, which stops where
+ * the costs don't get lower; a higher weight or the removal of an edge of the tree takes away the subtree below it,
+ * which a dijkstra seeded from the edges entering the subtree connects again. A change to an edge outside of the
+ * tree that doesn't lower a cost is only looked at.
+ *
+ * The tree is repaired by the thread changing the graph, as part of the change. The weights mustn't be negative.
+ */
+public final class ShortestPathTree {
+	private static final int NONE = -1;
+
+	private final Graph graph;
+	private final String source;
+	private final int criteria;
+	private final IndexedMinHeap heap;
+	private double[] cost = new double[0];
+	private int[] previous = new int[0];
+	// children of each vertex in the tree, as a doubly linked list of siblings
+	private int[] firstChild = new int[0];
+	private int[] nextSibling = new int[0];
+	private int[] previousSibling = new int[0];
+	// vertex taken out of the tree by the current change
+	private int[] cut = new int[0];
+	private int cutSize;
+
+	/**
+	 * @Constructor: Runs dijkstra from source to build the tree. The graph has to register it to keep it updated
+	 * @param graph The graph searched
+	 * @param source Key of the vertex at which the paths start
+	 * @param criteria The weight to use (distance or time)
+	 */
+	ShortestPathTree(Graph graph, int source, int criteria) {
+		this.graph = graph;
+		this.source = graph.getIdentifier(source);
+		this.criteria = criteria;
+		this.heap = new IndexedMinHeap(graph.getNumKeys());
+		ensureCapacity(graph.getNumKeys());
+		this.cost[source] = 0.0;
+		this.heap.addOrDecrease(source, 0.0);
+		settle();
+	}
+
+	/**
+	 * Gets the vertex at which the paths start
+	 * @return The ID of the source
+	 */
+	public String getSource() {
+		return this.source;
+	}
+
+	/**
+	 * Gets the weight the paths are shortest for
+	 * @return The criteria (distance or time)
+	 */
+	public int getCriteria() {
+		return this.criteria;
+	}
+
+	/**
+	 * Gets the cost of the shortest path from the source to a vertex
+	 * @param id The ID of the vertex
+	 * @return The cost, Double.POSITIVE_INFINITY if the vertex can't be reached or doesn't exist
+	 */
+	public double getCost(String id) {
+		int key = this.graph.getKey(id);
+		return (key == -1 || key >= this.cost.length) ? Double.POSITIVE_INFINITY : this.cost[key];
+	}
+
+	/**
+	 * Gets the shortest path from the source to a vertex
+	 * @param id The ID of the vertex
+	 * @return A graph containing the path, like the one of dijkstraYen, empty if the vertex can't be reached
+	 */
+	public Graph getPath(String id) {
+		int key = this.graph.getKey(id);
+		if (key == -1 || key >= this.cost.length || this.cost[key] == Double.POSITIVE_INFINITY) {
+			return new Graph(this.graph.isDirected());
+		}
+		int length = 1;
+		for (int k = key; this.previous[k] != NONE; k = this.previous[k]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int k = key; k != NONE; k = this.previous[k]) {
+			path[--length] = k;
+		}
+		return this.graph.toPathGraph(path);
+	}
+
+	/**
+	 * Builds a graph with the edges of the tree
+	 * @return The graph dijkstra returns for the source
+	 */
+	public Graph toGraph() {
+		ensureCapacity(this.graph.getNumKeys());
+		return this.graph.toTreeGraph(this.previous);
+	}
+
+	/**
+	 * Stops following the changes to the graph. The tree keeps the paths it had
+	 */
+	public void detach() {
+		this.graph.detach(this);
+	}
+
+	/**
+	 * Repairs the tree after a weight of the edge between the mentioned vertex changed
+	 * @param from Key of the vertex at which the edge starts
+	 * @param to Key of the vertex at which the edge ends
+	 * @param criteria The weight that changed
+	 */
+	void weightChanged(int from, int to, int criteria) {
+		if (criteria == this.criteria)
+			edgeChanged(from, to);
+	}
+
+	/**
+	 * Repairs the tree after the edge between the mentioned vertex was added, removed or had its weight changed
+	 * @param from Key of the vertex at which the edge starts
+	 * @param to Key of the vertex at which the edge ends
+	 */
+	void edgeChanged(int from, int to) {
+		ensureCapacity(this.graph.getNumKeys());
+		this.cutSize = 0;
+		// an edge of the tree that got heavier, in either direction of an undirected edge
+		if (this.previous[to] == from && this.cost[to] < this.cost[from] + weight(from, to))
+			cut(to);
+		if (!this.graph.isDirected() && this.previous[from] == to && this.cost[from] < this.cost[to] + weight(to, from))
+			cut(from);
+		reconnect();
+		improve(from, to);
+		if (!this.graph.isDirected())
+			improve(to, from);
+		settle();
+	}
+
+	/**
+	 * Repairs the tree after a vertex and its edges were removed. If it's the source, no vertex can be reached
+	 * @param key Key of the removed vertex
+	 */
+	void vertexRemoved(int key) {
+		ensureCapacity(this.graph.getNumKeys());
+		this.cutSize = 0;
+		cut(key);
+		reconnect();
+		settle();
+	}
+
+	private double weight(int from, int to) {
+		int i = this.graph.findEdge(from, to);
+		return (i == -1) ? Double.POSITIVE_INFINITY : this.graph.getWeight(from, i, this.criteria);
+	}
+
+	/**
+	 * Takes a vertex and the subtree below it out of the tree, leaving them unreached
+	 * @param root Key of the vertex
+	 */
+	private void cut(int root) {
+		int first = this.cutSize;
+		this.cut[this.cutSize++] = root;
+		for (int i = first; i < this.cutSize; i++) {
+			for (int child = this.firstChild[this.cut[i]]; child != NONE; child = this.nextSibling[child]) {
+				this.cut[this.cutSize++] = child;
+			}
+		}
+		unlink(root);
+		for (int i = first; i < this.cutSize; i++) {
+			int key = this.cut[i];
+			this.cost[key] = Double.POSITIVE_INFINITY;
+			this.previous[key] = NONE;
+			this.firstChild[key] = NONE;
+			this.nextSibling[key] = NONE;
+			this.previousSibling[key] = NONE;
+		}
+	}
+
+	/**
+	 * Queues each vertex that was cut with the cost of its cheapest edge from a vertex still in the tree
+	 */
+	private void reconnect() {
+		for (int i = 0; i < this.cutSize; i++) {
+			int key = this.cut[i];
+			if (!this.graph.exists(key))
+				continue;
+			for (int j = 0; j < this.graph.getInDegree(key); j++) {
+				int from = this.graph.getSource(key, j);
+				double value = this.cost[from] + this.graph.getInWeight(key, j, this.criteria);
+				if (value < this.cost[key]) {
+					this.cost[key] = value;
+					link(key, from);
+				}
+			}
+			if (this.cost[key] != Double.POSITIVE_INFINITY)
+				this.heap.addOrDecrease(key, this.cost[key]);
+		}
+	}
+
+	/**
+	 * Queues the end of an edge if the edge makes its path cheaper
+	 */
+	private void improve(int from, int to) {
+		double value = this.cost[from] + weight(from, to);
+		if (value < this.cost[to]) {
+			this.cost[to] = value;
+			link(to, from);
+			this.heap.addOrDecrease(to, value);
+		}
+	}
+
+	/**
+	 * Runs dijkstra from the queued vertex until no cost can be lowered
+	 */
+	private void settle() {
+		while (!this.heap.isEmpty()) {
+			int current = this.heap.poll();
+			double base = this.cost[current];
+			for (int i = 0; i < this.graph.getDegree(current); i++) {
+				int to = this.graph.getTarget(current, i);
+				double value = this.graph.getWeight(current, i, this.criteria) + base;
+				if (value < this.cost[to]) {
+					this.cost[to] = value;
+					link(to, current);
+					this.heap.addOrDecrease(to, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes parent the predecessor of key in the tree
+	 */
+	private void link(int key, int parent) {
+		unlink(key);
+		this.previous[key] = parent;
+		int next = this.firstChild[parent];
+		this.nextSibling[key] = next;
+		if (next != NONE)
+			this.previousSibling[next] = key;
+		this.firstChild[parent] = key;
+	}
+
+	/**
+	 * Takes key out of the children of its predecessor
+	 */
+	private void unlink(int key) {
+		int parent = this.previous[key];
+		if (parent == NONE)
+			return;
+		int before = this.previousSibling[key];
+		int after = this.nextSibling[key];
+		if (before == NONE) {
+			this.firstChild[parent] = after;
+		} else {
+			this.nextSibling[before] = after;
+		}
+		if (after != NONE)
+			this.previousSibling[after] = before;
+		this.previous[key] = NONE;
+		this.nextSibling[key] = NONE;
+		this.previousSibling[key] = NONE;
+	}
+
+	/**
+	 * Makes room for the keys of the vertex added to the graph since the last change, which aren't reached yet
+	 * @param capacity The number of keys
+	 */
+	private void ensureCapacity(int capacity) {
+		int old = this.cost.length;
+		if (capacity <= old)
+			return;
+		capacity = Math.max(capacity, old + (old >> 1));
+		this.cost = Arrays.copyOf(this.cost, capacity);
+		this.previous = Arrays.copyOf(this.previous, capacity);
+		this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+		this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+		this.previousSibling = Arrays.copyOf(this.previousSibling, capacity);
+		this.cut = Arrays.copyOf(this.cut, capacity);
+		Arrays.fill(this.cost, old, capacity, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.previous, old, capacity, NONE);
+		Arrays.fill(this.firstChild, old, capacity, NONE);
+		Arrays.fill(this.nextSibling, old, capacity, NONE);
+		Arrays.fill(this.previousSibling, old, capacity, NONE);
+		this.heap.ensureCapacity(capacity);
+	}
+}
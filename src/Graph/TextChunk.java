@@ -0,0 +1,316 @@
+package Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * A memory-mapped part of a text file that ends at the end of a line, read field by field without creating a String
+ * for each field. A file is split into chunks that can be parsed by different threads; each chunk keeps its own
+ * position, so a chunk must only be read by one thread at a time.
+ */
+final class TextChunk {
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private final File file;
+	private final long offset;
+	private final ByteBuffer buffer;
+	private int position;
+
+	// bounds of the last field read
+	int start;
+	int end;
+
+	private TextChunk(File file, long offset, ByteBuffer buffer) {
+		this.file = file;
+		this.offset = offset;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Splits a file into chunks of about the passed size, each ending at the end of a line
+	 * @param file The file
+	 * @param size The size of the chunks, in bytes; a chunk is bigger when it has a longer line
+	 * @return The chunks, in the order of the file
+	 * @throws IOException if the file can't be read
+	 */
+	static ArrayList<TextChunk> split(File file, int size) throws IOException {
+		ArrayList<TextChunk> chunks = new ArrayList<TextChunk>();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long length = channel.size();
+			long offset = 0;
+			int span = size;
+			while (offset < length) {
+				span = (int) Math.min(span, length - offset);
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, span);
+				int end = span;
+				if (offset + span < length) {
+					end = lastLineEnd(buffer);
+					if (end == 0) {
+						// a line longer than the chunk, which has to grow until the line fits
+						if (span == Integer.MAX_VALUE)
+							throw new IOException("Line too long at byte " + offset + " of " + file);
+						span = (int) Math.min(2L * span, Integer.MAX_VALUE);
+						continue;
+					}
+					buffer.limit(end);
+				}
+				chunks.add(new TextChunk(file, offset, buffer));
+				offset += end;
+				span = size;
+			}
+		} finally {
+			raf.close();
+		}
+		return chunks;
+	}
+
+	private static int lastLineEnd(ByteBuffer buffer) {
+		for (int i = buffer.limit() - 1; i >= 0; i--) {
+			if (buffer.get(i) == '\n')
+				return i + 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if there are lines left in the chunk
+	 * @return true if the chunk hasn't been read to the end
+	 */
+	boolean hasMore() {
+		return this.position < this.buffer.limit();
+	}
+
+	/**
+	 * Moves to the start of the next line
+	 */
+	void nextLine() {
+		int limit = this.buffer.limit();
+		while (this.position < limit && this.buffer.get(this.position++) != '\n') {
+		}
+	}
+
+	/**
+	 * Reads the next field of the line, without the spaces and carriage return around it. With a space as separator
+	 * the fields are separated by any number of spaces and tabs
+	 * @param separator The byte between the fields
+	 * @return false if the line has no fields left, in which case the position doesn't change
+	 */
+	boolean field(byte separator) {
+		int limit = this.buffer.limit();
+		int i = this.position;
+		while (i < limit && isBlank(this.buffer.get(i))) {
+			i++;
+		}
+		if (separator == ' ')
+			this.position = i;
+		if (i == limit || this.buffer.get(i) == '\n')
+			return false;
+
+		this.start = i;
+		byte b;
+		while (i < limit && (b = this.buffer.get(i)) != separator && b != '\n' && !(separator == ' ' && b == '\t')) {
+			i++;
+		}
+		int fieldEnd = i;
+		while (fieldEnd > this.start && isBlank(this.buffer.get(fieldEnd - 1))) {
+			fieldEnd--;
+		}
+		this.end = fieldEnd;
+		this.position = (i < limit && this.buffer.get(i) == separator) ? i + 1 : i;
+		return true;
+	}
+
+	private static boolean isBlank(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Reads the next field, which must be there
+	 * @param separator The byte between the fields
+	 * @param what What the field holds, for the error message
+	 * @throws IOException if the line has no fields left
+	 */
+	void requireField(byte separator, String what) throws IOException {
+		if (!field(separator))
+			throw malformed("missing " + what);
+	}
+
+	/**
+	 * Gets the first byte of the last field read
+	 */
+	byte first() {
+		return this.buffer.get(this.start);
+	}
+
+	/**
+	 * Parses the last field read as an integer
+	 * @return The value
+	 * @throws IOException if the field isn't an integer
+	 */
+	long parseLong() throws IOException {
+		int i = this.start;
+		boolean negative = i < this.end && this.buffer.get(i) == '-';
+		if (i < this.end && (negative || this.buffer.get(i) == '+'))
+			i++;
+		if (i == this.end || this.end - i > 18)
+			throw malformed("integer " + string());
+		long value = 0;
+		for (; i < this.end; i++) {
+			int digit = this.buffer.get(i) - '0';
+			if (digit < 0 || digit > 9)
+				throw malformed("integer " + string());
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the last field read as a number. Numbers of up to 15 significant digits with a small exponent are
+	 * converted with a single exact multiplication or division, which rounds correctly; the others go through
+	 * Double.parseDouble
+	 * @return The value
+	 * @throws IOException if the field isn't a number
+	 */
+	double parseDouble() throws IOException {
+		int i = this.start;
+		boolean negative = i < this.end && this.buffer.get(i) == '-';
+		if (i < this.end && (negative || this.buffer.get(i) == '+'))
+			i++;
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		boolean point = false;
+		for (; i < this.end; i++) {
+			byte b = this.buffer.get(i);
+			if (b == '.' && !point) {
+				point = true;
+				continue;
+			}
+			if (b < '0' || b > '9')
+				break;
+			any = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (b - '0');
+				if (mantissa != 0)
+					digits++;
+				if (point)
+					exponent--;
+			} else if (!point) {
+				exponent++;
+			}
+		}
+		if (any && i < this.end && (this.buffer.get(i) == 'e' || this.buffer.get(i) == 'E')) {
+			i++;
+			boolean negativeExponent = i < this.end && this.buffer.get(i) == '-';
+			if (i < this.end && (negativeExponent || this.buffer.get(i) == '+'))
+				i++;
+			int value = 0;
+			int start = i;
+			for (; i < this.end && i - start < 9; i++) {
+				int digit = this.buffer.get(i) - '0';
+				if (digit < 0 || digit > 9)
+					break;
+				value = value * 10 + digit;
+			}
+			if (i == start)
+				any = false;
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (!any || i != this.end || digits > 15 || exponent < -22 || exponent > 22) {
+			try {
+				return Double.parseDouble(string());
+			} catch (NumberFormatException e) {
+				throw malformed("number " + string());
+			}
+		}
+		double value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Gets the hash of the bytes of the last field read
+	 */
+	int hash() {
+		int h = 0;
+		for (int i = this.start; i < this.end; i++) {
+			h = 31 * h + this.buffer.get(i);
+		}
+		return h;
+	}
+
+	/**
+	 * Gets the last field read as a String
+	 */
+	String string() {
+		return string(this.start, this.end);
+	}
+
+	String string(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		copy(start, end, bytes, 0);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Copies bytes of the chunk into an array
+	 */
+	void copy(int start, int end, byte[] to, int at) {
+		for (int i = start; i < end; i++) {
+			to[at++] = this.buffer.get(i);
+		}
+	}
+
+	/**
+	 * Checks if the bytes from start to end are the same as the passed ones
+	 */
+	boolean equals(int start, int end, byte[] bytes, int at, int length) {
+		if (end - start != length)
+			return false;
+		for (int i = start; i < end; i++) {
+			if (this.buffer.get(i) != bytes[at++])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the bytes from start to end are the same as the bytes from otherStart to otherEnd of other
+	 */
+	boolean equals(int start, int end, TextChunk other, int otherStart, int otherEnd) {
+		if (end - start != otherEnd - otherStart)
+			return false;
+		for (int i = start; i < end; i++) {
+			if (this.buffer.get(i) != other.buffer.get(otherStart++))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the exception for a line that can't be parsed
+	 * @param what What's wrong with the line
+	 * @return The exception, with the position of the line in the file
+	 */
+	IOException malformed(String what) {
+		return new IOException("Malformed line at byte " + (this.offset + lineStart()) + " of " + this.file + ": "
+				+ what);
+	}
+
+	private int lineStart() {
+		int i = Math.min(this.position, this.buffer.limit());
+		while (i > 0 && this.buffer.get(i - 1) != '\n') {
+			i--;
+		}
+		return i;
+	}
+}
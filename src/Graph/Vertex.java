@@ -1,16 +1,76 @@
 package Graph;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Vertex {
+	static final int WEIGHTS = 2;
+	private static final int[] NO_KEYS = new int[0];
+	// below this degree a scan of the keys is as fast as the index
+	private static final int INDEX_THRESHOLD = 8;
+
 	private String identifier;
-	private ArrayList<Edge> edges;
 	private int key;
-	
+	private double x = Double.NaN;
+	private double y = Double.NaN;
+	Graph graph;
+
+	// outgoing adjacency (every neighbour in an undirected graph): target keys and one column of weights per
+	// criteria of the graph, weights[criteria][i] being the weight of the edge to targets[i]
+	int[] targets = NO_KEYS;
+	double[][] weights;
+	int degree;
+
+	// incoming adjacency, only used by directed graphs
+	int[] sources = NO_KEYS;
+	double[][] inWeights;
+	int inDegree;
+
+	// position of each neighbour in the adjacency above, only for the vertex with more than INDEX_THRESHOLD edges
+	private NeighbourIndex targetIndex;
+	private NeighbourIndex sourceIndex;
+
 	public Vertex(String id){
+		this(id, -1, null);
+	}
+
+	/**
+	 * @Constructor: Creates a vertex owned by a graph
+	 * @param id The identifier of the vertex
+	 * @param key The dense index given to the vertex by the graph
+	 * @param graph The graph the vertex belongs to
+	 */
+	Vertex(String id, int key, Graph graph){
 		this.identifier = id;
-		this.edges = new ArrayList<Edge>();
+		this.key = key;
+		this.graph = graph;
+		int columns = (graph == null) ? WEIGHTS : graph.getNumCriteria();
+		this.weights = new double[columns][0];
+		this.inWeights = new double[columns][0];
+	}
+
+	/**
+	 * @Constructor: Creates a copy of toClone, with its own adjacency arrays, owned by graph
+	 * @param toClone The vertex to copy
+	 * @param graph The graph the copy belongs to
+	 */
+	Vertex(Vertex toClone, Graph graph){
+		this(toClone.identifier, toClone.key, graph);
+		this.x = toClone.x;
+		this.y = toClone.y;
+		this.targets = Arrays.copyOf(toClone.targets, toClone.degree);
+		this.degree = toClone.degree;
+		this.sources = Arrays.copyOf(toClone.sources, toClone.inDegree);
+		this.inDegree = toClone.inDegree;
+		if (this.degree > INDEX_THRESHOLD)
+			this.targetIndex = new NeighbourIndex(this.targets, this.degree);
+		if (this.inDegree > INDEX_THRESHOLD)
+			this.sourceIndex = new NeighbourIndex(this.sources, this.inDegree);
+		for (int c = 0; c < this.weights.length; c++) {
+			this.weights[c] = Arrays.copyOf(toClone.weights[c], toClone.degree);
+			this.inWeights[c] = Arrays.copyOf(toClone.inWeights[c], toClone.inDegree);
+		}
 	}
-	
+
 	public boolean equals(Object obj){
 		if(!(obj instanceof Vertex)){
 			return false;
@@ -21,11 +81,235 @@ public class Vertex {
 		return false;
 	}
 
+	public int hashCode(){
+		return this.identifier.hashCode();
+	}
+
 	public String getIdentifier() {
 		return identifier;
 	}
 
+	/**
+	 * Gets the dense index the owning graph gave to this vertex
+	 * @return The key, or -1 if the vertex doesn't belong to a graph
+	 */
+	public int getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the first coordinate of this vertex (the longitude, in degrees, for geographic graphs)
+	 * @return The coordinate, NaN if the vertex has no coordinates
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the second coordinate of this vertex (the latitude, in degrees, for geographic graphs)
+	 * @return The coordinate, NaN if the vertex has no coordinates
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * Checks if this vertex has coordinates
+	 * @return true if it has, false otherwise
+	 */
+	public boolean hasCoordinates() {
+		return !Double.isNaN(x) && !Double.isNaN(y);
+	}
+
+	/**
+	 * Sets the coordinates of this vertex, used by the heuristics of A*
+	 * @param x The first coordinate (the longitude, in degrees, for geographic graphs)
+	 * @param y The second coordinate (the latitude, in degrees, for geographic graphs)
+	 */
+	public void setCoordinates(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Gets the edges of this vertex. In a directed graph both the outgoing and the incoming edges are returned.
+	 * Removing an edge moves the last edge of the vertex into its place, so the order changes.
+	 * The edges are built from the graph's adjacency arrays, so changes to the returned list have no effect,
+	 * but setting the weight of one of the edges updates the graph.
+	 * @return An ArrayList with the edges of this vertex
+	 */
 	public ArrayList<Edge> getEdges() {
+		ArrayList<Edge> edges = new ArrayList<Edge>(degree + inDegree);
+		if (graph == null) {
+			return edges;
+		}
+		boolean directed = graph.isDirected();
+		for (int i = 0; i < degree; i++) {
+			String other = graph.vertexAt(targets[i]).getIdentifier();
+			edges.add(new Edge(identifier, other, row(weights, i), directed, graph));
+		}
+		for (int i = 0; i < inDegree; i++) {
+			String other = graph.vertexAt(sources[i]).getIdentifier();
+			edges.add(new Edge(other, identifier, row(inWeights, i), directed, graph));
+		}
 		return edges;
 	}
+
+	/**
+	 * Gets the position of target in the outgoing adjacency
+	 * @param target The key of the neighbour
+	 * @return The position, or -1 if there's no edge to target
+	 */
+	int findTarget(int target) {
+		if (targetIndex != null)
+			return targetIndex.get(target);
+		for (int i = 0; i < degree; i++) {
+			if (targets[i] == target)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the position of source in the incoming adjacency
+	 * @param source The key of the neighbour
+	 * @return The position, or -1 if there's no edge from source
+	 */
+	int findSource(int source) {
+		if (sourceIndex != null)
+			return sourceIndex.get(source);
+		for (int i = 0; i < inDegree; i++) {
+			if (sources[i] == source)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Sizes the adjacency arrays for the passed number of edges, before any is added. The edges can then be
+	 * written straight into the arrays, calling indexAdjacency once they're all there
+	 * @param outgoing The number of outgoing edges
+	 * @param incoming The number of incoming edges
+	 */
+	void reserve(int outgoing, int incoming) {
+		targets = new int[outgoing];
+		sources = new int[incoming];
+		for (int c = 0; c < weights.length; c++) {
+			weights[c] = new double[outgoing];
+			inWeights[c] = new double[incoming];
+		}
+	}
+
+	/**
+	 * Builds the neighbour indexes of the adjacencies that need them, after edges were written straight into the
+	 * arrays
+	 */
+	void indexAdjacency() {
+		if (targetIndex == null && degree > INDEX_THRESHOLD)
+			targetIndex = new NeighbourIndex(targets, degree);
+		if (sourceIndex == null && inDegree > INDEX_THRESHOLD)
+			sourceIndex = new NeighbourIndex(sources, inDegree);
+	}
+
+	void addTarget(int target, double[] w) {
+		if (degree == targets.length) {
+			int capacity = Math.max(4, degree * 2);
+			targets = Arrays.copyOf(targets, capacity);
+			grow(weights, capacity);
+		}
+		targets[degree] = target;
+		copyWeights(w, weights, degree);
+		if (targetIndex != null)
+			targetIndex.put(target, degree);
+		degree++;
+		if (targetIndex == null && degree > INDEX_THRESHOLD)
+			targetIndex = new NeighbourIndex(targets, degree);
+	}
+
+	void addSource(int source, double[] w) {
+		if (inDegree == sources.length) {
+			int capacity = Math.max(4, inDegree * 2);
+			sources = Arrays.copyOf(sources, capacity);
+			grow(inWeights, capacity);
+		}
+		sources[inDegree] = source;
+		copyWeights(w, inWeights, inDegree);
+		if (sourceIndex != null)
+			sourceIndex.put(source, inDegree);
+		inDegree++;
+		if (sourceIndex == null && inDegree > INDEX_THRESHOLD)
+			sourceIndex = new NeighbourIndex(sources, inDegree);
+	}
+
+	/**
+	 * Removes an outgoing edge, moving the last one into its position
+	 * @param i The position of the edge
+	 */
+	void removeTargetAt(int i) {
+		degree--;
+		if (targetIndex != null)
+			targetIndex.remove(targets[i]);
+		targets[i] = targets[degree];
+		for (double[] column : weights) {
+			column[i] = column[degree];
+		}
+		if (targetIndex != null && i != degree)
+			targetIndex.put(targets[i], i);
+	}
+
+	/**
+	 * Removes an incoming edge, moving the last one into its position
+	 * @param i The position of the edge
+	 */
+	void removeSourceAt(int i) {
+		inDegree--;
+		if (sourceIndex != null)
+			sourceIndex.remove(sources[i]);
+		sources[i] = sources[inDegree];
+		for (double[] column : inWeights) {
+			column[i] = column[inDegree];
+		}
+		if (sourceIndex != null && i != inDegree)
+			sourceIndex.put(sources[i], i);
+	}
+
+	/**
+	 * Gets a weight of an outgoing edge
+	 * @param i The position of the edge in the outgoing adjacency
+	 * @param criteria The weight to get (distance, time or one added to the graph)
+	 * @return The weight
+	 */
+	double getWeight(int i, int criteria) {
+		return weights[criteria][i];
+	}
+
+	/**
+	 * Adds a column of weights for a criteria added to the graph, 0 for every edge
+	 */
+	void addCriteria() {
+		weights = Arrays.copyOf(weights, weights.length + 1);
+		weights[weights.length - 1] = new double[targets.length];
+		inWeights = Arrays.copyOf(inWeights, inWeights.length + 1);
+		inWeights[inWeights.length - 1] = new double[sources.length];
+	}
+
+	private static void grow(double[][] columns, int capacity) {
+		for (int c = 0; c < columns.length; c++) {
+			columns[c] = Arrays.copyOf(columns[c], capacity);
+		}
+	}
+
+	private static void copyWeights(double[] w, double[][] to, int position) {
+		for (int c = 0; c < to.length; c++) {
+			to[c][position] = (w != null && c < w.length) ? w[c] : 0.0;
+		}
+	}
+
+	private static double[] row(double[][] columns, int position) {
+		double[] w = new double[columns.length];
+		for (int c = 0; c < columns.length; c++) {
+			w[c] = columns[c][position];
+		}
+		return w;
+	}
 }
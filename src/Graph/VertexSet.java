@@ -0,0 +1,231 @@
+package Graph;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of vertex of one graph, kept as a bitset over their keys. A complement set keeps the bits of the vertex it
+ * doesn't hold, so taking the complement of a search result costs nothing; the vertex it holds are read from the
+ * graph when it's used, so they follow vertex added to or removed from the graph later.
+ *
+ * Intersection, union and difference combine 64 vertex per operation and return a new set, the sets themselves
+ * never change.
+ */
+public final class VertexSet implements Iterable<String> {
+	private final AbstractGraph graph;
+	private final long[] words;
+	private final boolean complement;
+
+	/**
+	 * @Constructor: Creates a set over the passed bits
+	 * @param graph The graph whose vertex are in the set
+	 * @param words The bits, bit k % 64 of word k / 64 standing for the vertex with key k
+	 * @param complement If true the set holds the vertex whose bit isn't set
+	 */
+	VertexSet(AbstractGraph graph, long[] words, boolean complement) {
+		this.graph = graph;
+		this.words = words;
+		this.complement = complement;
+	}
+
+	/**
+	 * Creates the bits for a set of the vertex of graph
+	 * @param graph The graph
+	 * @return The bits, all clear
+	 */
+	static long[] newWords(AbstractGraph graph) {
+		return new long[(graph.getNumKeys() + 63) >>> 6];
+	}
+
+	static void set(long[] words, int key) {
+		words[key >>> 6] |= 1L << key;
+	}
+
+	/**
+	 * Creates the set of the passed vertex, by ID, leaving out the ones that aren't in graph
+	 * @param graph The graph
+	 * @param vertex The vertex
+	 * @return The set
+	 */
+	static VertexSet of(AbstractGraph graph, Iterable<Vertex> vertex) {
+		long[] words = newWords(graph);
+		for (Vertex v : vertex) {
+			int key = graph.getKey(v.getIdentifier());
+			if (key != -1)
+				set(words, key);
+		}
+		return new VertexSet(graph, words, false);
+	}
+
+	/**
+	 * Gets the complement of this set, the vertex of the graph that aren't in it
+	 * @return The complement
+	 */
+	public VertexSet complement() {
+		return new VertexSet(this.graph, this.words, !this.complement);
+	}
+
+	/**
+	 * Gets the vertex that are in this set and in other
+	 * @param other A set of the same graph
+	 * @return The intersection
+	 */
+	public VertexSet and(VertexSet other) {
+		return combine(other, false);
+	}
+
+	/**
+	 * Gets the vertex that are in this set or in other
+	 * @param other A set of the same graph
+	 * @return The union
+	 */
+	public VertexSet or(VertexSet other) {
+		// a or b = not (not a and not b)
+		return combine(other, true);
+	}
+
+	/**
+	 * Gets the vertex that are in this set but not in other
+	 * @param other A set of the same graph
+	 * @return The difference
+	 */
+	public VertexSet andNot(VertexSet other) {
+		return and(other.complement());
+	}
+
+	/**
+	 * Intersects this set with other, both complemented first and the result afterwards if negate is true
+	 */
+	private VertexSet combine(VertexSet other, boolean negate) {
+		if (other.graph != this.graph)
+			throw new IllegalArgumentException("The sets are of different graphs");
+		// with the complement flags the intersection of the held sets always becomes one operation on the bits
+		boolean a = this.complement != negate;
+		boolean b = other.complement != negate;
+		long[] words = new long[Math.max(this.words.length, other.words.length)];
+		for (int w = 0; w < words.length; w++) {
+			long x = (w < this.words.length) ? this.words[w] : 0L;
+			long y = (w < other.words.length) ? other.words[w] : 0L;
+			if (!a && !b)
+				words[w] = x & y;
+			else if (!a)
+				words[w] = x & ~y;
+			else if (!b)
+				words[w] = ~x & y;
+			else
+				words[w] = x | y;
+		}
+		// the result holds the set bits, or their complement if both sides were complemented
+		return new VertexSet(this.graph, words, (a && b) != negate);
+	}
+
+	/**
+	 * Checks if the set has the mentioned vertex
+	 * @param id The ID of the vertex
+	 * @return true if the vertex exists and is in the set, false otherwise
+	 */
+	public boolean contains(String id) {
+		int key = this.graph.getKey(id);
+		return key != -1 && contains(key);
+	}
+
+	boolean contains(int key) {
+		int word = key >>> 6;
+		boolean set = word < this.words.length && (this.words[word] & (1L << key)) != 0;
+		return set != this.complement && this.graph.exists(key);
+	}
+
+	/**
+	 * Gets the number of vertex in the set, counting the bits of a whole word at a time when the graph has no keys
+	 * left unused by removed vertex
+	 * @return The number of vertex
+	 */
+	public int size() {
+		int n = this.graph.getNumKeys();
+		if (this.graph.getNumVertex() != n) {
+			int count = 0;
+			for (int key = next(0); key != -1; key = next(key + 1)) {
+				count++;
+			}
+			return count;
+		}
+		int count = 0;
+		int full = n >>> 6;
+		for (int w = 0; w < full; w++) {
+			count += Long.bitCount(word(w));
+		}
+		if ((n & 63) != 0)
+			count += Long.bitCount(word(full) & ((1L << n) - 1));
+		return count;
+	}
+
+	/**
+	 * Checks if the set has no vertex
+	 * @return true if the set is empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return next(0) == -1;
+	}
+
+	/**
+	 * Gets the IDs of the vertex in the set, in order of key
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int key = VertexSet.this.next(0);
+
+			@Override
+			public boolean hasNext() {
+				return this.key != -1;
+			}
+
+			@Override
+			public String next() {
+				if (this.key == -1)
+					throw new NoSuchElementException();
+				String id = graph.getIdentifier(this.key);
+				this.key = VertexSet.this.next(this.key + 1);
+				return id;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Gets the first key from the passed one that is in the set, skipping a whole word of keys at a time where
+	 * possible
+	 * @param from The key at which to start
+	 * @return The key, -1 if there's none
+	 */
+	int next(int from) {
+		int n = this.graph.getNumKeys();
+		while (from < n) {
+			int w = from >>> 6;
+			long bits = word(w) & (-1L << from);
+			if (bits == 0) {
+				from = (w + 1) << 6;
+				continue;
+			}
+			int key = (w << 6) + Long.numberOfTrailingZeros(bits);
+			if (key >= n)
+				return -1;
+			if (this.graph.exists(key))
+				return key;
+			from = key + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the bits of the vertex held, complemented if needed
+	 */
+	private long word(int w) {
+		long bits = (w < this.words.length) ? this.words[w] : 0L;
+		return this.complement ? ~bits : bits;
+	}
+}
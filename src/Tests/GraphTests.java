@@ -2,8 +2,35 @@ package Tests;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import org.junit.Test;
+import Graph.AbstractGraph;
+import Graph.ConcurrentGraph;
+import Graph.ContractionHierarchy;
+import Graph.Edge;
+import Graph.FrozenGraph;
 import Graph.Graph;
+import Graph.GraphBuilder;
+import Graph.GraphImporter;
+import Graph.Heuristics;
+import Graph.Isochrone;
+import Graph.Landmarks;
+import Graph.MappedGraph;
+import Graph.OffHeapGraph;
+import Graph.QueryWorkspace;
+import Graph.ShortestPathTree;
+import Graph.Vertex;
+import Graph.VertexSet;
 
 public class GraphTests {
 	
@@ -46,4 +73,857 @@ public class GraphTests {
 		g.addEdge("A", "B", new double[]{3.0, 3.0}, true);
 				
 	}
+	
+	@Test
+	public void testRemoveVertex(){
+		Graph g = new Graph();
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		
+		assertTrue(g.removeVertex("B"));
+		assertFalse(g.checkExistsVertex("B"));
+		assertFalse(g.removeVertex("B"));
+		assertEquals(g.getNumVertex(), 2);
+		assertEquals(g.getVertex().get(0).getIdentifier(), "A");
+		assertEquals(g.getVertex().get(1).getIdentifier(), "C");
+		assertTrue(g.addEdge("A", "C", new double[]{1.0, 1.0}, false));
+	}
+	
+	@Test
+	public void testEdgeSetWeight(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{3.0, 4.0}, true);
+		
+		Edge e = g.getGraphVertex(g, "A").getEdges().get(0);
+		assertEquals(e.getFrom(), "A");
+		assertEquals(e.getTo(), "B");
+		assertEquals(e.getWeight(Graph.TIME), 4.0, 0.0);
+		
+		e.setWeight(7.0, Graph.TIME);
+		assertEquals(g.getGraphVertex(g, "A").getEdges().get(0).getWeight(Graph.TIME), 7.0, 0.0);
+		assertEquals(g.getGraphVertex(g, "B").getEdges().get(0).getWeight(Graph.TIME), 7.0, 0.0);
+		
+		assertTrue(g.removeEdge("A", "B"));
+		assertEquals(g.getGraphVertex(g, "A").getEdges().size(), 0);
+		assertEquals(g.getGraphVertex(g, "B").getEdges().size(), 0);
+	}
+	
+	@Test
+	public void testFreeze(){
+		Graph g = new Graph();
+		g.addEdge("A", "B", new double[]{2.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{2.0, 1.0}, true);
+		g.addEdge("A", "C", new double[]{5.0, 1.0}, true);
+		
+		FrozenGraph f = g.freeze();
+		g.removeVertex("B");
+		
+		assertEquals(f.getNumVertex(), 3);
+		assertTrue(f.checkExistsVertex("B"));
+		assertEquals(f.getNumEdges(), 6);
+		assertEquals(f.rangedDfs("A", 3.0, Graph.DISTANCE).size(), 2);
+		assertEquals(f.dijkstraYen("A", "C", Graph.DISTANCE).getNumVertex(), 3);
+		assertEquals(g.dijkstraYen("A", "C", Graph.DISTANCE).getNumVertex(), 2);
+	}
+	
+	@Test
+	public void testDijkstraFractionalWeights(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{0.4, 1.0}, true);
+		g.addEdge("B", "C", new double[]{0.4, 1.0}, true);
+		g.addEdge("A", "C", new double[]{0.9, 1.0}, true);
+		g.addEdge("C", "D", new double[]{0.1, 1.0}, true);
+		
+		Graph d = g.dijkstra("A", Graph.DISTANCE);
+		assertEquals(d.getNumVertex(), 4);
+		assertTrue(d.getGraphVertex(d, "C").getEdges().contains(new Edge("B", "C", null, true)));
+		assertFalse(d.getGraphVertex(d, "C").getEdges().contains(new Edge("A", "C", null, true)));
+		assertTrue(d.getGraphVertex(d, "D").getEdges().contains(new Edge("C", "D", null, true)));
+		assertEquals(d.getGraphVertex(d, "A").getEdges().size(), 1);
+	}
+	
+	@Test
+	public void testDijkstraYenGrid(){
+		Graph g = new Graph();
+		int side = 30;
+		for(int i = 0; i < side; i++){
+			for(int j = 0; j < side; j++){
+				if(i + 1 < side)
+					g.addEdge(i + "," + j, (i + 1) + "," + j, new double[]{1.0, 2.0}, true);
+				if(j + 1 < side)
+					g.addEdge(i + "," + j, i + "," + (j + 1), new double[]{1.0, 2.0}, true);
+			}
+		}
+		
+		Graph path = g.dijkstraYen("0,0", (side - 1) + "," + (side - 1), Graph.DISTANCE);
+		assertEquals(path.getNumVertex(), 2 * side - 1);
+		assertEquals(path.getVertex().get(0).getIdentifier(), "0,0");
+	}
+	
+	@Test
+	public void testPassingDirected(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		g.addEdge("A", "D", new double[]{1.0, 1.0}, true);
+		g.addEdge("D", "C", new double[]{5.0, 1.0}, true);
+		
+		Graph path = g.passing("A", "C", "D", Graph.DISTANCE);
+		assertEquals(path.getNumVertex(), 3);
+		assertTrue(path.checkExistsVertex("D"));
+		assertFalse(path.checkExistsVertex("B"));
+	}
+	
+	@Test
+	public void testYen(){
+		Graph g = new Graph();
+		g.addEdge("A", "B", new double[]{2.0, 0.0}, true);
+		g.addEdge("A", "C", new double[]{1.0, 0.0}, true);
+		g.addEdge("B", "D", new double[]{5.0, 0.0}, true);
+		g.addEdge("B", "C", new double[]{3.0, 0.0}, true);
+		g.addEdge("D", "E", new double[]{1.0, 0.0}, true);
+		g.addEdge("C", "E", new double[]{2.0, 0.0}, true);
+		String before = g.toString();
+		
+		ArrayList<Graph> paths = g.yen("A", "E", 3, Graph.DISTANCE);
+		assertEquals(paths.size(), 3);
+		assertEquals(paths.get(0).getNumVertex(), 3);
+		assertTrue(paths.get(0).checkExistsVertex("C"));
+		assertEquals(paths.get(1).getNumVertex(), 4);
+		assertTrue(paths.get(1).checkExistsVertex("B"));
+		assertTrue(paths.get(2).checkExistsVertex("D"));
+		assertEquals(g.yen("A", "E", 10, Graph.DISTANCE).size(), 4);
+		assertEquals(g.toString(), before);
+	}
+	
+	@Test
+	public void testBidirectionalDijkstra(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 5.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 5.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 5.0}, true);
+		g.addEdge("A", "D", new double[]{4.0, 1.0}, true);
+		g.addEdge("D", "A", new double[]{0.5, 0.5}, true);
+		
+		Graph byDistance = g.bidirectionalDijkstra("A", "D", Graph.DISTANCE);
+		assertEquals(byDistance.getNumVertex(), 4);
+		Graph byTime = g.freeze().bidirectionalDijkstra("A", "D", Graph.TIME);
+		assertEquals(byTime.getNumVertex(), 2);
+		assertTrue(byTime.getGraphVertex(byTime, "A").getEdges().contains(new Edge("A", "D", null, true)));
+		assertEquals(g.bidirectionalDijkstra("D", "C", Graph.DISTANCE).getNumVertex(), 4);
+	}
+	
+	@Test
+	public void testAStar(){
+		Graph g = new Graph();
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "D", new double[]{1.5, 1.0}, true);
+		g.addEdge("A", "C", new double[]{1.0, 1.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 1.0}, true);
+		g.setCoordinates("A", 0.0, 0.0);
+		g.setCoordinates("B", 1.0, 0.0);
+		g.setCoordinates("C", 0.0, 1.0);
+		g.setCoordinates("D", 1.0, 1.0);
+		
+		Graph path = g.aStar("A", "D", Graph.DISTANCE, Heuristics.euclidean());
+		assertEquals(path.getNumVertex(), 3);
+		assertTrue(path.checkExistsVertex("C"));
+		
+		path = g.freeze().aStar("A", "D", Graph.TIME, Heuristics.euclideanTime(1.0));
+		assertEquals(path.getNumVertex(), 3);
+		assertEquals(g.aStar("A", "E", Graph.DISTANCE, Heuristics.NONE).getNumVertex(), 0);
+	}
+	
+	@Test
+	public void testContractionHierarchy(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 5.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 5.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 5.0}, true);
+		g.addEdge("A", "D", new double[]{4.0, 1.0}, true);
+		g.addEdge("D", "A", new double[]{0.5, 0.5}, true);
+		
+		ContractionHierarchy ch = g.contract(Graph.DISTANCE);
+		assertEquals(ch.shortestPath("A", "D").getNumVertex(), 4);
+		assertEquals(ch.getDistance("A", "D"), 3.0, 0.0);
+		assertEquals(ch.getDistance("D", "C"), 2.5, 0.0);
+		assertEquals(ch.getDistance("A", "E"), Double.POSITIVE_INFINITY, 0.0);
+		assertEquals(g.contract(Graph.TIME).shortestPath("A", "D").getNumVertex(), 2);
+		
+		Graph grid = new Graph();
+		for(int i = 0; i < 10; i++){
+			for(int j = 0; j < 10; j++){
+				if(i < 9)
+					grid.addEdge(i + "," + j, (i + 1) + "," + j, new double[]{1.0, 1.0}, true);
+				if(j < 9)
+					grid.addEdge(i + "," + j, i + "," + (j + 1), new double[]{1.0, 1.0}, true);
+			}
+		}
+		ch = grid.freeze().contract(Graph.DISTANCE);
+		for(int i = 0; i < 10; i++){
+			for(int j = 0; j < 10; j++){
+				assertEquals(ch.getDistance("0,0", i + "," + j), i + j, 0.0);
+				if(i + j < 18)
+					assertEquals(ch.shortestPath(i + "," + j, "9,9").getNumVertex(), (9 - i) + (9 - j) + 1);
+			}
+		}
+	}
+	
+	@Test
+	public void testLandmarks(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 5.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 5.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 5.0}, true);
+		g.addEdge("A", "D", new double[]{4.0, 1.0}, true);
+		g.addEdge("D", "A", new double[]{0.5, 0.5}, true);
+		
+		Landmarks farthest = g.landmarks(Graph.DISTANCE, 2, Landmarks.FARTHEST);
+		assertEquals(farthest.getLandmarks().length, 2);
+		assertEquals(g.aStar("A", "D", Graph.DISTANCE, farthest).getNumVertex(), 4);
+		assertEquals(g.aStar("D", "C", Graph.DISTANCE, farthest).getNumVertex(), 4);
+		
+		Landmarks avoid = g.freeze().landmarks(Graph.TIME, 10, Landmarks.AVOID);
+		assertEquals(avoid.getLandmarks().length, 4);
+		assertEquals(g.freeze().aStar("A", "D", Graph.TIME, avoid).getNumVertex(), 2);
+		
+		g.getGraphVertex(g, "A").getEdges().get(0).setWeight(0.1, Graph.DISTANCE);
+		farthest.recompute();
+		assertEquals(g.aStar("D", "B", Graph.DISTANCE, farthest).getNumVertex(), 3);
+	}
+	
+	@Test
+	public void testDijkstraBatch(){
+		Graph g = new Graph(true);
+		for(int i = 0; i < 20; i++){
+			g.addEdge("v" + i, "v" + ((i + 1) % 20), new double[]{1.0, 1.0}, true);
+			g.addEdge("v" + i, "v" + ((i * 7) % 20), new double[]{3.0, 1.0}, true);
+		}
+		ArrayList<String> sources = new ArrayList<String>();
+		for(int i = 0; i < 20; i += 3){
+			sources.add("v" + i);
+		}
+		sources.add("X");
+		
+		ArrayList<Graph> trees = g.freeze().dijkstra(sources, Graph.DISTANCE);
+		assertEquals(trees.size(), sources.size());
+		for(int i = 0; i < sources.size() - 1; i++){
+			assertEquals(trees.get(i).toString(), g.dijkstra(sources.get(i), Graph.DISTANCE).toString());
+		}
+		assertNull(trees.get(sources.size() - 1));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			trees = g.dijkstra(sources, Graph.TIME, executor, 3);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(trees.get(2).toString(), g.dijkstra(sources.get(2), Graph.TIME).toString());
+	}
+	
+	@Test
+	public void testDeltaStepping(){
+		Graph g = new Graph(true);
+		Random random = new Random(7);
+		for(int i = 0; i < 2000; i++){
+			g.addVertex("v" + i);
+		}
+		for(int i = 0; i < 8000; i++){
+			g.addEdge("v" + random.nextInt(2000), "v" + random.nextInt(2000), new double[]{random.nextDouble() * 10, 1.0}, true);
+		}
+		
+		String expected = g.dijkstra("v0", Graph.DISTANCE).toString();
+		assertEquals(g.deltaStepping("v0", Graph.DISTANCE).toString(), expected);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(g.freeze().deltaStepping("v0", Graph.DISTANCE, 0.5, pool).toString(), expected);
+			assertEquals(g.deltaStepping("v0", Graph.DISTANCE, 100.0, pool).toString(), expected);
+			// the arrays left by one search mustn't leak into the next
+			QueryWorkspace workspace = new QueryWorkspace();
+			assertEquals(g.deltaStepping("v1", Graph.DISTANCE, 0.5, pool, workspace).toString(),
+					g.dijkstra("v1", Graph.DISTANCE).toString());
+			assertEquals(g.deltaStepping("v0", Graph.DISTANCE, 0.5, pool, workspace).toString(), expected);
+		} finally {
+			pool.shutdown();
+		}
+		assertNull(g.deltaStepping("X", Graph.DISTANCE));
+	}
+	
+	@Test
+	public void testIsochrone(){
+		Graph g = new Graph(false);
+		Random random = new Random(5);
+		for(int i = 0; i < 300; i++){
+			g.addVertex("v" + i);
+		}
+		for(int i = 0; i < 1200; i++){
+			g.addEdge("v" + random.nextInt(300), "v" + random.nextInt(300), new double[]{random.nextDouble() * 10, 1.0}, true);
+		}
+		
+		Isochrone isochrone = g.isochrone("v0", 12.0, Graph.DISTANCE);
+		assertEquals(isochrone.getIdentifier(0), "v0");
+		assertEquals(isochrone.getCost(0), 0.0, 0.0);
+		int inside = 0;
+		for(int i = 0; i < 300; i++){
+			double cost = g.getDistance("v0", "v" + i, Graph.DISTANCE, new QueryWorkspace());
+			if(cost < 12.0){
+				inside++;
+			}
+		}
+		assertEquals(isochrone.size(), inside);
+		for(int i = 0; i < isochrone.size(); i++){
+			assertEquals(isochrone.getCost(i), g.getDistance("v0", isochrone.getIdentifier(i), Graph.DISTANCE, new QueryWorkspace()), 1e-9);
+			assertTrue(isochrone.getCost(i) < 12.0);
+			assertTrue(i == 0 || isochrone.getCost(i) >= isochrone.getCost(i - 1));
+		}
+		assertEquals(g.rangedDfs("v0", 12.0, Graph.DISTANCE).size(), inside);
+		assertNull(g.isochrone("X", 12.0, Graph.DISTANCE));
+		
+		// deep enough to overflow the stack of a recursive search
+		Graph chain = new Graph(false);
+		for(int i = 1; i < 100000; i++){
+			chain.addEdge("c" + (i - 1), "c" + i, new double[]{1.0, 1.0}, true);
+		}
+		assertEquals(chain.isochrone("c0", 50000.0, Graph.DISTANCE).size(), 50000);
+		assertEquals(chain.rangedDfs("c0", 0.0, Graph.DISTANCE).size(), 1);
+	}
+	
+	@Test
+	public void testOutsideIsochrone(){
+		Graph g = new Graph(true);
+		Random random = new Random(9);
+		for(int i = 0; i < 200; i++){
+			g.addVertex("v" + i);
+		}
+		for(int i = 0; i < 600; i++){
+			g.addEdge("v" + random.nextInt(200), "v" + random.nextInt(200), new double[]{random.nextDouble() * 10, 1.0}, true);
+		}
+		g.removeVertex("v150");
+		
+		Isochrone inside = g.isochrone("v0", 10.0, Graph.DISTANCE);
+		VertexSet outside = g.outsideIsochrone("v0", 10.0, Graph.DISTANCE);
+		assertEquals(inside.size() + outside.size(), g.getNumVertex());
+		for(int i = 0; i < inside.size(); i++){
+			assertFalse(outside.contains(inside.getIdentifier(i)));
+		}
+		int count = 0;
+		for(String id : outside){
+			assertTrue(outside.contains(id));
+			assertTrue(g.checkExistsVertex(id));
+			count++;
+		}
+		assertEquals(count, outside.size());
+		assertFalse(outside.contains("v150"));
+		assertEquals(g.invertedRangedDfs("v0", 10.0, Graph.DISTANCE).size(), outside.size());
+		assertNull(g.outsideIsochrone("X", 10.0, Graph.DISTANCE));
+	}
+	
+	@Test
+	public void testVertexSet(){
+		Graph g = new Graph(false);
+		Random random = new Random(13);
+		for(int i = 0; i < 400; i++){
+			g.addVertex("v" + i);
+		}
+		for(int i = 0; i < 1000; i++){
+			g.addEdge("v" + random.nextInt(400), "v" + random.nextInt(400), new double[]{random.nextDouble() * 10, 1.0}, true);
+		}
+		
+		VertexSet[] sets = {
+			g.insideIsochrone("v0", 15.0, Graph.DISTANCE),
+			g.isochrone("v1", 15.0, Graph.DISTANCE).getVertexSet(),
+			g.outsideIsochrone("v2", 15.0, Graph.DISTANCE),
+			g.outsideIsochrone("v3", 20.0, Graph.DISTANCE)
+		};
+		for(VertexSet a : sets){
+			for(VertexSet b : sets){
+				int and = 0, or = 0, andNot = 0;
+				for(int i = 0; i < 400; i++){
+					String id = "v" + i;
+					boolean x = a.contains(id), y = b.contains(id);
+					assertEquals(a.and(b).contains(id), x && y);
+					assertEquals(a.or(b).contains(id), x || y);
+					assertEquals(a.andNot(b).contains(id), x && !y);
+					and += (x && y) ? 1 : 0;
+					or += (x || y) ? 1 : 0;
+					andNot += (x && !y) ? 1 : 0;
+				}
+				assertEquals(a.and(b).size(), and);
+				assertEquals(a.or(b).size(), or);
+				assertEquals(a.andNot(b).size(), andNot);
+			}
+			assertEquals(a.size() + a.complement().size(), 400);
+			assertTrue(a.and(a.complement()).isEmpty());
+		}
+		
+		// removed vertex leave keys unused, which are never part of a set
+		VertexSet all = sets[0].or(sets[0].complement());
+		g.removeVertex("v7");
+		assertEquals(all.size(), 399);
+		assertFalse(all.contains("v7"));
+		
+		ArrayList<Vertex> common = g.getCommonVertex(g.rangedDfs("v0", 15.0, Graph.DISTANCE), g.rangedDfs("v1", 15.0, Graph.DISTANCE));
+		assertEquals(common.size(), g.insideIsochrone("v0", 15.0, Graph.DISTANCE).and(g.insideIsochrone("v1", 15.0, Graph.DISTANCE)).size());
+	}
+	
+	@Test
+	public void testCriteria(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		g.addEdge("A", "C", new double[]{5.0, 5.0}, true);
+		assertEquals(g.getNumCriteria(), 2);
+		assertEquals(g.getCriteria("time"), Graph.TIME);
+		assertEquals(g.getCriteria("toll"), -1);
+		
+		int toll = g.addCriteria("toll");
+		assertEquals(toll, 2);
+		assertEquals(g.addCriteria("toll"), toll);
+		assertEquals(g.getCriteriaName(toll), "toll");
+		assertEquals(g.getGraphVertex(g, "A").getEdges().get(0).getWeight("toll"), 0.0, 0.0);
+		
+		// the direct edge is the only one without a toll
+		g.getGraphVertex(g, "A").getEdges().get(0).setWeight(3.0, toll);
+		g.getGraphVertex(g, "B").getEdges().get(0).setWeight(3.0, toll);
+		g.addEdge("C", "D", new double[]{1.0, 1.0, 2.0}, true);
+		assertEquals(g.dijkstraYen("A", "C", Graph.DISTANCE).getNumVertex(), 3);
+		Graph path = g.dijkstraYen("A", "C", toll);
+		assertEquals(path.getNumVertex(), 2);
+		assertEquals(path.getCriteria("toll"), toll);
+		assertEquals(path.getGraphVertex(path, "A").getEdges().get(0).getWeight("toll"), 0.0, 0.0);
+		path = g.dijkstraYen("A", "C", Graph.DISTANCE);
+		assertEquals(path.getGraphVertex(path, "B").getEdges().get(0).getWeight("toll"), 3.0, 0.0);
+		assertEquals(path.getGraphVertex(path, "B").getEdges().get(0).getWeight(Graph.TIME), 1.0, 0.0);
+		assertEquals(g.getDistance("A", "D", toll, new QueryWorkspace()), 2.0, 0.0);
+		assertEquals(g.getGraphVertex(g, "C").getEdges().get(0).getWeight(toll), 2.0, 0.0);
+		assertEquals(g.getGraphVertex(g, "C").getEdges().get(0).getWeight(3), -1.123456789, 0.0);
+		
+		FrozenGraph f = g.freeze();
+		assertEquals(f.getCriteria("toll"), toll);
+		assertEquals(f.getDistance("A", "D", toll, new QueryWorkspace()), 2.0, 0.0);
+		assertEquals(new Graph(g).getDistance("A", "C", toll, new QueryWorkspace()), 0.0, 0.0);
+	}
+	
+	@Test
+	public void testParetoPaths(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{5.0, 1.0}, true);
+		g.addEdge("B", "D", new double[]{5.0, 1.0}, true);
+		g.addEdge("A", "C", new double[]{1.0, 5.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 5.0}, true);
+		g.addEdge("A", "E", new double[]{3.0, 3.0}, true);
+		g.addEdge("E", "D", new double[]{3.0, 3.0}, true);
+		g.addEdge("A", "F", new double[]{4.0, 4.0}, true);
+		g.addEdge("F", "D", new double[]{4.0, 4.0}, true);
+		
+		// A-F-D is dominated by A-E-D, the others are each best for some trade-off
+		ArrayList<Graph> front = g.paretoPaths("A", "D", Graph.DISTANCE, Graph.TIME);
+		assertEquals(front.size(), 3);
+		assertTrue(front.get(0).checkExistsVertex("C"));
+		assertTrue(front.get(1).checkExistsVertex("E"));
+		assertTrue(front.get(2).checkExistsVertex("B"));
+		
+		assertEquals(g.paretoPaths("A", "D", Graph.TIME).size(), 1);
+		assertEquals(g.paretoPaths("D", "A", Graph.DISTANCE, Graph.TIME).size(), 0);
+		assertEquals(g.freeze().paretoPaths("A", "D", Graph.DISTANCE, Graph.TIME).size(), 3);
+		assertEquals(g.paretoPaths("A", "X", Graph.DISTANCE, Graph.TIME).size(), 0);
+		
+		QueryWorkspace workspace = new QueryWorkspace();
+		int[] both = {Graph.DISTANCE, Graph.TIME};
+		for(int i = 0; i < 2; i++){
+			assertEquals(g.paretoPaths("A", "D", both, workspace).size(), 3);
+			assertEquals(g.paretoPaths("E", "D", both, workspace).size(), 1);
+		}
+	}
+	
+	@Test
+	public void testHubEdges(){
+		Graph g = new Graph(true);
+		for(int i = 0; i < 1000; i++){
+			assertTrue(g.addEdge("hub", "x" + i, new double[]{i, 1.0}, true));
+			assertTrue(g.addEdge("x" + i, "hub", new double[]{i, 1.0}, true));
+		}
+		assertFalse(g.addEdge("hub", "x500", new double[]{1.0, 1.0}, true));
+		for(int i = 0; i < 1000; i += 2){
+			assertTrue(g.removeEdge("hub", "x" + i));
+		}
+		assertTrue(g.removeVertex("x1"));
+		
+		assertEquals(g.getGraphVertex(g, "hub").getEdges().size(), 499 + 999);
+		for(int i = 2; i < 1000; i++){
+			Graph path = g.dijkstraYen("hub", "x" + i, Graph.DISTANCE);
+			assertEquals(path.getNumVertex(), (i % 2 == 1) ? 2 : 0);
+		}
+		assertTrue(g.addEdge("hub", "x0", new double[]{0.5, 1.0}, true));
+		assertEquals(g.getDistance("hub", "x0", Graph.DISTANCE, new QueryWorkspace()), 0.5, 0.0);
+		assertEquals(g.getDistance("x998", "hub", Graph.DISTANCE, new QueryWorkspace()), 998.0, 0.0);
+	}
+	
+	@Test
+	public void testGraphBuilder(){
+		GraphBuilder builder = new GraphBuilder(false, 4, 8);
+		Graph g = new Graph(false);
+		int a = builder.addVertex("A");
+		int b = builder.addVertex("B");
+		g.addVertex("A");
+		g.addVertex("B");
+		builder.addEdge("A", "C", new double[]{4.0, 1.0});
+		builder.addEdge(a, b, new double[]{1.0, 1.0});
+		builder.addEdge(b, a, new double[]{9.0, 9.0});
+		builder.addEdge("B", "C", new double[]{1.0, 1.0});
+		builder.addEdges(new int[]{a, 2}, new int[]{2, b}, new double[][]{{7.0, 7.0}, {1.0, 1.0}});
+		g.addEdge("A", "C", new double[]{4.0, 1.0}, true);
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+
+		// the duplicates, reversed or not, are dropped like Graph.addEdge does
+		Graph built = builder.build();
+		assertEquals(built.toString(), g.toString());
+		assertEquals(built.getDistance("A", "C", Graph.DISTANCE, new QueryWorkspace()), 2.0, 0.0);
+		assertEquals(built.getDistance("A", "C", Graph.TIME, new QueryWorkspace()), 1.0, 0.0);
+
+		int toll = builder.addCriteria("toll");
+		builder.addEdge("C", "D", new double[]{1.0, 1.0, 5.0});
+		built = builder.build();
+		assertEquals(built.getCriteria("toll"), toll);
+		assertEquals(built.getDistance("A", "D", toll, new QueryWorkspace()), 5.0, 0.0);
+
+		builder.addEdge(a, 10, null);
+		try{
+			builder.build();
+			fail("an edge to a missing vertex must be rejected");
+		}catch(IllegalArgumentException e){
+		}
+	}
+
+	@Test
+	public void testMappedGraph() throws Exception {
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 4.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 4.0}, true);
+		g.addEdge("A", "C", new double[]{3.0, 1.0}, true);
+		g.addEdge("C", "\u00dcn\u00ef", new double[]{1.0, 1.0}, true);
+		g.addEdge("X", "A", new double[]{1.0, 1.0}, true);
+		g.setCoordinates("B", 1.5, 2.5);
+		int toll = g.addCriteria("toll");
+		g.getGraphVertex(g, "A").getEdges().get(1).setWeight(9.0, toll);
+		g.removeVertex("X");
+
+		File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		g.write(file);
+		MappedGraph m = new MappedGraph(file);
+		assertTrue(m.isDirected());
+		assertEquals(m.getNumVertex(), 4);
+		assertEquals(m.toString(), g.freeze().toString());
+		assertFalse(m.checkExistsVertex("X"));
+		assertTrue(m.checkExistsVertex("\u00dcn\u00ef"));
+		assertEquals(m.getCriteria("toll"), toll);
+		assertEquals(m.getDistance("A", "\u00dcn\u00ef", Graph.DISTANCE, new QueryWorkspace()), 3.0, 0.0);
+		assertEquals(m.getDistance("A", "C", toll, new QueryWorkspace()), 0.0, 0.0);
+		assertEquals(m.dijkstraYen("A", "C", Graph.TIME).getNumVertex(), 2);
+		assertEquals(m.bidirectionalDijkstra("A", "C", Graph.DISTANCE).getNumVertex(), 3);
+		assertEquals(m.getX(1), 1.5, 0.0);
+
+		Graph u = new Graph();
+		u.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		u.write(file);
+		m = new MappedGraph(file);
+		assertFalse(m.isDirected());
+		assertEquals(m.getNumEdges(), 2);
+		assertEquals(m.dijkstraYen("B", "A", Graph.DISTANCE).getNumVertex(), 2);
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.writeInt(0);
+		raf.close();
+		try{
+			new MappedGraph(file);
+			fail("a file that isn't a graph must be rejected");
+		}catch(IOException e){
+		}
+	}
+
+	@Test
+	public void testOffHeapGraph(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 4.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 4.0}, true);
+		g.addEdge("A", "C", new double[]{3.0, 1.0}, true);
+		g.addEdge("X", "A", new double[]{1.0, 1.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 1.0}, true);
+		g.setCoordinates("C", 0.5, 1.5);
+		int toll = g.addCriteria("toll");
+		g.getGraphVertex(g, "B").getEdges().get(0).setWeight(2.0, toll);
+		g.removeVertex("X");
+
+		OffHeapGraph off = g.toOffHeap();
+		g.removeVertex("D");
+		assertTrue(off.isDirected());
+		assertEquals(off.getNumVertex(), 4);
+		assertEquals(off.getNumEdges(), 4);
+		assertFalse(off.checkExistsVertex("X"));
+		assertTrue(off.checkExistsVertex("D"));
+		assertEquals(off.getCriteria("toll"), toll);
+		assertEquals(off.getDistance("A", "D", Graph.DISTANCE, new QueryWorkspace()), 3.0, 0.0);
+		assertEquals(off.getDistance("A", "D", toll, new QueryWorkspace()), 0.0, 0.0);
+		assertEquals(off.getDistance("B", "D", toll, new QueryWorkspace()), 2.0, 0.0);
+		assertEquals(off.dijkstraYen("A", "C", Graph.TIME).getNumVertex(), 2);
+		assertEquals(off.bidirectionalDijkstra("A", "D", Graph.DISTANCE).getNumVertex(), 4);
+		assertEquals(off.contract(Graph.DISTANCE).getDistance("A", "D"), 3.0, 0.0);
+		assertEquals(off.getX(2), 0.5, 0.0);
+		assertNull(off.dijkstra((String) null, Graph.DISTANCE));
+		assertNull(off.isochrone(null, 1.0, Graph.DISTANCE));
+		assertEquals(off.insideIsochrone("A", 2.5, Graph.DISTANCE).size(), 3);
+		assertTrue(off.outsideIsochrone("A", 2.5, Graph.DISTANCE).contains("D"));
+		assertEquals(off.dijkstraYen("A", null, Graph.DISTANCE).getNumVertex(), 0);
+
+		Graph u = new Graph();
+		u.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		u.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		off = u.toOffHeap();
+		assertFalse(off.isDirected());
+		assertEquals(off.toString(), u.freeze().toString());
+		assertEquals(off.getDistance("C", "A", Graph.DISTANCE, new QueryWorkspace()), 2.0, 0.0);
+	}
+
+	@Test
+	public void testShortestPathTree(){
+		Graph g = new Graph(true);
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		g.addEdge("A", "C", new double[]{5.0, 5.0}, true);
+		g.addEdge("C", "D", new double[]{1.0, 1.0}, true);
+		ShortestPathTree tree = g.shortestPathTree("A", Graph.TIME);
+		assertNull(g.shortestPathTree("Z", Graph.TIME));
+		assertEquals(tree.getSource(), "A");
+		assertEquals(tree.getCost("D"), 3.0, 0.0);
+		assertEquals(tree.getPath("D").getNumVertex(), 4);
+		assertEquals(tree.toGraph().toString(), g.dijkstra("A", Graph.TIME).toString());
+
+		Edge bc = g.getGraphVertex(g, "B").getEdges().get(0);
+		bc.setWeight(10.0, Graph.TIME);
+		assertEquals(tree.getCost("D"), 6.0, 0.0);
+		assertEquals(tree.getPath("D").getNumVertex(), 3);
+		bc.setWeight(10.0, Graph.DISTANCE);
+		assertEquals(tree.getCost("D"), 6.0, 0.0);
+		bc.setWeight(0.5, Graph.TIME);
+		assertEquals(tree.getCost("C"), 1.5, 0.0);
+		g.addEdge("B", "D", new double[]{1.0, 1.0}, true);
+		assertEquals(tree.getCost("D"), 2.0, 0.0);
+		g.removeVertex("B");
+		assertEquals(tree.getCost("D"), 6.0, 0.0);
+		assertEquals(tree.getCost("B"), Double.POSITIVE_INFINITY, 0.0);
+		g.addEdge("D", "E", new double[]{1.0, 1.0}, true);
+		assertEquals(tree.getCost("E"), 7.0, 0.0);
+		g.removeEdge("C", "D");
+		assertEquals(tree.getCost("E"), Double.POSITIVE_INFINITY, 0.0);
+		assertEquals(tree.getPath("E").getNumVertex(), 0);
+		tree.detach();
+		g.addEdge("A", "E", new double[]{1.0, 1.0}, true);
+		assertEquals(tree.getCost("E"), Double.POSITIVE_INFINITY, 0.0);
+
+		Random random = new Random(17);
+		for (boolean directed : new boolean[]{true, false}) {
+			Graph r = new Graph(directed);
+			int n = 60;
+			for (int i = 0; i < 4 * n; i++) {
+				r.addEdge("v" + random.nextInt(n), "v" + random.nextInt(n), new double[]{1.0, 1 + random.nextInt(9)}, true);
+			}
+			ShortestPathTree dynamic = r.shortestPathTree("v0", Graph.TIME);
+			for (int step = 0; step < 300; step++) {
+				String a = "v" + random.nextInt(n);
+				String b = "v" + random.nextInt(n);
+				int change = random.nextInt(10);
+				if (change == 0) {
+					r.removeEdge(a, b);
+				} else if (change == 1 && !a.equals("v0")) {
+					r.removeVertex(a);
+				} else if (change < 4) {
+					r.addEdge(a, b, new double[]{1.0, 1 + random.nextInt(9)}, true);
+				} else if (r.checkExistsVertex(a) && !r.getGraphVertex(r, a).getEdges().isEmpty()) {
+					ArrayList<Edge> edges = r.getGraphVertex(r, a).getEdges();
+					edges.get(random.nextInt(edges.size())).setWeight(random.nextInt(10), Graph.TIME);
+				}
+				for (int i = 0; i < n; i++) {
+					assertEquals(dynamic.getCost("v" + i), r.getDistance("v0", "v" + i, Graph.TIME, new QueryWorkspace()),
+							0.0);
+				}
+			}
+			assertEquals(dynamic.toGraph().getNumVertex(), r.getNumVertex());
+		}
+	}
+
+	@Test
+	public void testGraphImporter() throws Exception {
+		File file = File.createTempFile("graph", ".txt");
+		file.deleteOnExit();
+		write(file, "c example\np sp 4 5\na 1 2 3\na 2 3 1.5\na 1 3 9\nc between\na 3 4 1\na 1 2 7\n");
+		File coordinates = File.createTempFile("graph", ".co");
+		coordinates.deleteOnExit();
+		write(coordinates, "p aux sp co 4\nv 1 -73530767 41085396\nv 4 1000000 2000000\n");
+		Graph g = GraphImporter.readDimacs(file, coordinates, Graph.DISTANCE);
+		assertTrue(g.isDirected());
+		assertEquals(g.getNumVertex(), 4);
+		assertEquals(g.getDistance("1", "4", Graph.DISTANCE, new QueryWorkspace()), 5.5, 0.0);
+		assertEquals(g.getDistance("1", "4", Graph.TIME, new QueryWorkspace()), 0.0, 0.0);
+		assertEquals(g.getGraphVertex(g, "1").getEdges().get(0).getWeight(Graph.DISTANCE), 3.0, 0.0);
+		assertEquals(g.getGraphVertex(g, "1").getX(), -73.530767, 1e-9);
+		assertFalse(g.getGraphVertex(g, "2").hasCoordinates());
+
+		write(file, "from,to,time,distance\nA,B,2,10\n B , C ,1.25,1e1\r\n\nA,C,5,30\n");
+		g = GraphImporter.readEdgeList(file, ',', true, false, 3, 2);
+		assertFalse(g.isDirected());
+		assertEquals(g.getDistance("C", "A", Graph.DISTANCE, new QueryWorkspace()), 20.0, 0.0);
+		assertEquals(g.getDistance("C", "A", Graph.TIME, new QueryWorkspace()), 3.25, 0.0);
+
+		File ways = File.createTempFile("graph", ".ways");
+		ways.deleteOnExit();
+		write(file, "a;0.0;0.0\nb;0.0;1.0\nc;1.0;1.0\n");
+		write(ways, "w1;a\nw1;b\nw1;c\nw2;c\nw2;a\n");
+		g = GraphImporter.readNodesAndWays(file, ways, ';', false, true, 10.0);
+		assertEquals(g.getGraphVertex(g, "a").getEdges().size(), 2);
+		double degree = Math.toRadians(1.0) * Heuristics.EARTH_RADIUS;
+		assertEquals(g.getDistance("a", "b", Graph.DISTANCE, new QueryWorkspace()), degree, 1e-6);
+		assertEquals(g.getDistance("a", "b", Graph.TIME, new QueryWorkspace()), degree / 10.0, 1e-6);
+		assertEquals(g.getGraphVertex(g, "c").getY(), 1.0, 0.0);
+
+		write(file, "p sp 2 1\na 1 3 1\n");
+		try{
+			GraphImporter.readDimacs(file, null, Graph.DISTANCE);
+			fail("an arc to a missing vertex must be rejected");
+		}catch(IOException e){
+		}
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+	}
+
+	@Test
+	public void testQueryWorkspace(){
+		Graph g = new Graph(true);
+		Random random = new Random(11);
+		for(int i = 0; i < 500; i++){
+			g.addVertex("v" + i);
+		}
+		for(int i = 0; i < 2000; i++){
+			g.addEdge("v" + random.nextInt(500), "v" + random.nextInt(500), new double[]{random.nextDouble() * 10, 1.0}, true);
+		}
+		Graph small = new Graph(false);
+		small.addVertex("A");
+		small.addVertex("B");
+		small.addVertex("C");
+		small.addEdge("A", "B", new double[]{2.0, 1.0}, true);
+		
+		// the same workspace goes from one graph and one search to another
+		QueryWorkspace workspace = new QueryWorkspace();
+		ContractionHierarchy ch = g.contract(Graph.DISTANCE);
+		for(int q = 0; q < 20; q++){
+			String start = "v" + random.nextInt(500);
+			String end = "v" + random.nextInt(500);
+			String expected = g.dijkstraYen(start, end, Graph.DISTANCE).toString();
+			assertEquals(g.dijkstraYen(start, end, Graph.DISTANCE, workspace).toString(), expected);
+			assertEquals(g.bidirectionalDijkstra(start, end, Graph.DISTANCE, workspace).toString(), expected);
+			assertEquals(g.aStar(start, end, Graph.DISTANCE, Heuristics.NONE, workspace).toString(), expected);
+			assertEquals(g.getDistance(start, end, Graph.DISTANCE, workspace), ch.getDistance(start, end, workspace), 1e-9);
+			assertEquals(g.yen(start, end, 3, Graph.DISTANCE, workspace).toString(), g.yen(start, end, 3, Graph.DISTANCE).toString());
+			
+			assertEquals(small.getDistance("A", "B", Graph.DISTANCE, workspace), 2.0, 0.0);
+			assertEquals(small.getDistance("A", "C", Graph.DISTANCE, workspace), Double.POSITIVE_INFINITY, 0.0);
+			assertEquals(small.dijkstra("C", Graph.DISTANCE, workspace).toString(), small.dijkstra("C", Graph.DISTANCE).toString());
+		}
+		assertEquals(g.dijkstra("v0", Graph.DISTANCE, workspace).toString(), g.dijkstra("v0", Graph.DISTANCE).toString());
+		assertEquals(g.getDistance("v0", "X", Graph.DISTANCE, workspace), Double.POSITIVE_INFINITY, 0.0);
+	}
+	
+	@Test
+	public void testConcurrentGraph() throws Exception {
+		final ConcurrentGraph g = new ConcurrentGraph(true);
+		assertTrue(g.addEdge("A", "B", new double[]{1.0, 5.0}, true));
+		assertTrue(g.addEdge("B", "C", new double[]{1.0, 5.0}, true));
+		assertFalse(g.addEdge("A", "B", new double[]{1.0, 5.0}, true));
+		assertFalse(g.addEdge("A", "D", new double[]{1.0, 5.0}, false));
+		
+		AbstractGraph snapshot = g.snapshot();
+		assertTrue(g.setEdgeWeight("A", "B", 10.0, Graph.DISTANCE));
+		assertTrue(g.addEdge("A", "C", new double[]{2.0, 1.0}, true));
+		assertTrue(g.removeVertex("B"));
+		assertEquals(snapshot.getNumVertex(), 3);
+		assertEquals(snapshot.dijkstraYen("A", "C", Graph.DISTANCE).getNumVertex(), 3);
+		assertEquals(g.getNumVertex(), 2);
+		assertEquals(g.snapshot().dijkstraYen("A", "C", Graph.DISTANCE).getNumVertex(), 2);
+		assertFalse(g.snapshot().checkExistsVertex("B"));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+		for(int t = 0; t < 4; t++){
+			final String prefix = "t" + t + "_";
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for(int i = 0; i < 500; i++){
+						g.addEdge(prefix + i, prefix + (i + 1), new double[]{1.0, 1.0}, true);
+					}
+				}
+			}));
+		}
+		for(Future<?> future : futures){
+			future.get();
+		}
+		executor.shutdown();
+		assertEquals(g.getNumVertex(), 2 + 4 * 501);
+		assertEquals(g.snapshot().dijkstraYen("t2_0", "t2_500", Graph.DISTANCE).getNumVertex(), 501);
+	}
+
+	@Test
+	public void testConcurrentGraphCriteria(){
+		String[] ids = {"A", "B", "C"};
+		for(boolean directed : new boolean[]{true, false}){
+			ConcurrentGraph g = new ConcurrentGraph(directed);
+			g.addEdge("A", "B", new double[]{5.0, 5.0}, true);
+			g.addEdge("A", "C", new double[]{5.0, 5.0}, true);
+			g.addEdge("B", "C", new double[]{5.0, 5.0}, true);
+			assertFalse(g.setEdgeWeight("A", "B", 99.0, 2));
+			assertFalse(g.setEdgeWeight("A", "B", 99.0, -1));
+			// every edge still costs 5 for both criteria, in both directions of the undirected ones
+			AbstractGraph snapshot = g.snapshot();
+			for(String a : ids){
+				for(String b : ids){
+					if(a.equals(b) || (directed && a.compareTo(b) > 0))
+						continue;
+					assertEquals(snapshot.getDistance(a, b, Graph.DISTANCE, new QueryWorkspace()), 5.0, 0.0);
+					assertEquals(snapshot.getDistance(a, b, Graph.TIME, new QueryWorkspace()), 5.0, 0.0);
+				}
+			}
+			try{
+				snapshot.getDistance("A", "B", 2, new QueryWorkspace());
+				fail("a query with a criteria the graph doesn't have must fail");
+			}catch(ArrayIndexOutOfBoundsException e){
+			}
+		}
+
+		ConcurrentGraph g = new ConcurrentGraph(true);
+		g.addEdge("A", "B", new double[]{1.0, 1.0}, true);
+		g.addEdge("B", "C", new double[]{1.0, 1.0}, true);
+		g.addEdge("A", "C", new double[]{5.0, 5.0}, true);
+		AbstractGraph before = g.snapshot();
+		int toll = g.addCriteria("toll");
+		assertEquals(toll, 2);
+		assertEquals(g.addCriteria("toll"), toll);
+		assertEquals(g.getNumCriteria(), 3);
+		assertEquals(before.getNumCriteria(), 2);
+		assertEquals(before.getCriteria("toll"), -1);
+		assertTrue(g.setEdgeWeight("A", "B", 3.0, toll));
+		assertTrue(g.setEdgeWeight("B", "C", 3.0, toll));
+		g.addEdge("C", "D", new double[]{1.0, 1.0, 2.0}, true);
+		AbstractGraph snapshot = g.snapshot();
+		assertEquals(snapshot.getCriteria("toll"), toll);
+		assertEquals(snapshot.getDistance("A", "C", toll, new QueryWorkspace()), 0.0, 0.0);
+		assertEquals(snapshot.getDistance("A", "D", toll, new QueryWorkspace()), 2.0, 0.0);
+		assertEquals(snapshot.getDistance("A", "C", Graph.DISTANCE, new QueryWorkspace()), 2.0, 0.0);
+		Graph path = snapshot.dijkstraYen("A", "C", Graph.DISTANCE);
+		assertEquals(path.getGraphVertex(path, "B").getEdges().get(0).getWeight("toll"), 3.0, 0.0);
+	}
 }